@@ -0,0 +1,230 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+
+/**
+ * Búsquedas constructivas de costo acotado para UNA combinación de hubs, con las mismas
+ * decisiones que Solver.backtrackRecursivo (entregar a un cliente pendiente o ir a recargar):
+ *
+ *  - Haz (beam search): avanza nivel por nivel y en cada nivel se queda con los 'ancho'
+ *    estados de menor puntaje. El tiempo crece linealmente con el ancho.
+ *  - Discrepancia limitada (LDS): recorre en profundidad siguiendo siempre al mejor hijo,
+ *    y se permite tomar otro hijo a lo sumo 'maxDiscrepancias' veces por camino.
+ *
+ * Puntaje de un estado = costo acumulado + MotorRuteo.cotaResto.
+ */
+public class BusquedaHaz extends MotorRuteo {
+
+    private final boolean discrepancia; // false = haz
+    private final int parametro;        // Ancho del haz o máximo de discrepancias
+
+    private static class Estado {
+        int nodo;
+        int capacidad;
+        long costo;
+        long puntaje;
+        int[] pendientes;
+        int restantes;
+        boolean esRecarga; // Cómo se llegó a este estado
+        Estado padre;
+    }
+
+    // Estado del DFS de discrepancia limitada (modificado y restaurado, como en el Solver)
+    private int[] pendientesDfs;
+    private int[] camino;
+    private boolean[] pasoEsRecarga;
+    private int largoCamino;
+
+
+    private BusquedaHaz(Terminales terminales, int capacidadCamion, boolean discrepancia, int parametro) {
+        super(terminales, capacidadCamion);
+        this.discrepancia = discrepancia;
+        this.parametro = parametro;
+    }
+
+    //Búsqueda en haz que se queda con los 'ancho' mejores estados por nivel.
+    public static BusquedaHaz haz(Terminales terminales, int capacidadCamion, int ancho) {
+        return new BusquedaHaz(terminales, capacidadCamion, false, ancho);
+    }
+
+    //Búsqueda de discrepancia limitada con a lo sumo 'maxDiscrepancias' desvíos por camino.
+    public static BusquedaHaz discrepancia(Terminales terminales, int capacidadCamion, int maxDiscrepancias) {
+        return new BusquedaHaz(terminales, capacidadCamion, true, maxDiscrepancias);
+    }
+
+    @Override
+    public void resolver() {
+        if (discrepancia) buscarDiscrepancia(parametro);
+        else buscarHaz(parametro);
+    }
+
+    @Override
+    public boolean esExacto() {
+        return false;
+    }
+
+
+    // --- HAZ ---
+
+    private void buscarHaz(int ancho) {
+        Estado inicial = new Estado();
+        inicial.nodo = terminales.indiceDeposito;
+        inicial.capacidad = capacidadCamion;
+        inicial.pendientes = Arrays.copyOf(terminales.demanda, k);
+        inicial.restantes = Arrays.stream(terminales.demanda).sum();
+
+        List<Estado> nivel = new ArrayList<>();
+        nivel.add(inicial);
+
+        while (!nivel.isEmpty()) {
+            List<Estado> siguiente = new ArrayList<>();
+            for (Estado e : nivel) {
+                if (e.restantes == 0) {
+                    completar(e);
+                    continue;
+                }
+                expandir(e, siguiente);
+            }
+
+            // Nos quedamos con los 'ancho' mejores (y que todavía puedan mejorar)
+            long limite = limite();
+            siguiente.removeIf(e -> e.puntaje >= limite);
+            siguiente.sort(Comparator.comparingLong((Estado e) -> e.puntaje));
+            nivel = (siguiente.size() > ancho) ? new ArrayList<>(siguiente.subList(0, ancho)) : siguiente;
+        }
+    }
+
+    private void expandir(Estado e, List<Estado> hijos) {
+        this.estadosExpandidos++;
+        int fila = e.nodo * k;
+
+        // Opción 1: Entregar un paquete (si tenemos capacidad)
+        if (e.capacidad > 0) {
+            for (int cliente : terminales.clientes) {
+                if (e.pendientes[cliente] == 0) continue;
+                Estado h = new Estado();
+                h.nodo = cliente;
+                h.capacidad = e.capacidad - 1;
+                h.costo = e.costo + distancias[fila + cliente];
+                h.pendientes = Arrays.copyOf(e.pendientes, k);
+                h.pendientes[cliente]--;
+                h.restantes = e.restantes - 1;
+                h.padre = e;
+                h.puntaje = h.costo + cotaResto(h.nodo, h.pendientes);
+                hijos.add(h);
+            }
+        }
+
+        // Opción 2: Ir a recargar (a un Hub o al Depósito)
+        if (e.capacidad < capacidadCamion) {
+            for (int r = 0; r < numRecargas; r++) {
+                int idRecarga = recargas[r];
+                if (idRecarga == e.nodo) continue;
+                Estado h = new Estado();
+                h.nodo = idRecarga;
+                h.capacidad = capacidadCamion;
+                h.costo = e.costo + distancias[fila + idRecarga];
+                h.pendientes = e.pendientes; // No cambian: se comparte el arreglo
+                h.restantes = e.restantes;
+                h.esRecarga = true;
+                h.padre = e;
+                h.puntaje = h.costo + cotaResto(h.nodo, h.pendientes);
+                hijos.add(h);
+            }
+        }
+    }
+
+    // Estado sin pendientes: se vuelve a la recarga más cercana y se compara con el mejor
+    private void completar(Estado e) {
+        long total = e.costo + distCercana[e.nodo];
+        if (total >= this.mejorDistancia) return;
+        this.mejorDistancia = total;
+
+        int largo = 1;
+        for (Estado x = e; x.padre != null; x = x.padre) largo++;
+        this.mejorCamino = new int[largo + 1];
+        this.mejorCaminoRecarga = new boolean[largo + 1];
+        this.mejorCamino[largo] = recargaCercana[e.nodo];
+        int paso = largo - 1;
+        for (Estado x = e; x != null; x = x.padre, paso--) {
+            this.mejorCamino[paso] = x.nodo;
+            this.mejorCaminoRecarga[paso] = x.esRecarga;
+        }
+    }
+
+
+    // --- DISCREPANCIA LIMITADA ---
+
+    private void buscarDiscrepancia(int maxDiscrepancias) {
+        this.pendientesDfs = Arrays.copyOf(terminales.demanda, k);
+        int maxPasos = 2 * Arrays.stream(terminales.demanda).sum() + 2;
+        this.camino = new int[maxPasos];
+        this.pasoEsRecarga = new boolean[maxPasos];
+        this.camino[0] = terminales.indiceDeposito;
+        this.largoCamino = 1;
+
+        dfsDiscrepancia(terminales.indiceDeposito, capacidadCamion, 0,
+                Arrays.stream(terminales.demanda).sum(), maxDiscrepancias);
+    }
+
+    private void dfsDiscrepancia(int nodoActual, int capacidadRestante, long costo, int restantes, int discrepancias) {
+        this.estadosExpandidos++;
+        if (restantes == 0) {
+            long total = costo + distCercana[nodoActual];
+            if (total < this.mejorDistancia) {
+                this.mejorDistancia = total;
+                this.mejorCamino = Arrays.copyOf(this.camino, this.largoCamino + 1);
+                this.mejorCamino[this.largoCamino] = recargaCercana[nodoActual];
+                this.mejorCaminoRecarga = Arrays.copyOf(this.pasoEsRecarga, this.largoCamino + 1);
+                this.mejorCaminoRecarga[this.largoCamino] = false; // El retorno final no es recarga (la celda puede traer basura de otra rama)
+            }
+            return;
+        }
+
+        // Hijos ordenados por puntaje: {nodo, esRecarga (0/1)} y su puntaje
+        int fila = nodoActual * k;
+        List<long[]> hijos = new ArrayList<>();
+        if (capacidadRestante > 0) {
+            for (int cliente : terminales.clientes) {
+                if (this.pendientesDfs[cliente] == 0) continue;
+                this.pendientesDfs[cliente]--;
+                long puntaje = costo + distancias[fila + cliente] + cotaResto(cliente, this.pendientesDfs);
+                this.pendientesDfs[cliente]++;
+                hijos.add(new long[] { puntaje, cliente, 0 });
+            }
+        }
+        if (capacidadRestante < capacidadCamion) {
+            for (int r = 0; r < numRecargas; r++) {
+                int idRecarga = recargas[r];
+                if (idRecarga == nodoActual) continue;
+                long puntaje = costo + distancias[fila + idRecarga] + cotaResto(idRecarga, this.pendientesDfs);
+                hijos.add(new long[] { puntaje, idRecarga, 1 });
+            }
+        }
+        hijos.sort(Comparator.comparingLong((long[] h) -> h[0]));
+
+        for (int i = 0; i < hijos.size(); i++) {
+            int gasto = (i == 0) ? 0 : 1; // Apartarse del mejor hijo cuesta una discrepancia
+            if (gasto > discrepancias) break;
+            long[] h = hijos.get(i);
+            if (h[0] >= limite()) break; // Los siguientes son peores
+
+            int nodo = (int) h[1];
+            boolean recarga = h[2] == 1;
+            this.camino[this.largoCamino] = nodo;
+            this.pasoEsRecarga[this.largoCamino] = recarga;
+            this.largoCamino++;
+
+            if (recarga) {
+                dfsDiscrepancia(nodo, capacidadCamion, costo + distancias[fila + nodo], restantes, discrepancias - gasto);
+            } else {
+                this.pendientesDfs[nodo]--;
+                dfsDiscrepancia(nodo, capacidadRestante - 1, costo + distancias[fila + nodo], restantes - 1, discrepancias - gasto);
+                this.pendientesDfs[nodo]++;
+            }
+            this.largoCamino--;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+
+//Progreso persistido del Solver: combinaciones de hubs ya exploradas, la mejor solución y las cotas.
+public class Checkpoint {
+
+    // --- Progreso de la búsqueda ---
+    public BitSet combinacionesCompletadas = new BitSet();
+    public Solucion mejorSolucion;
+    public long costoMejorSolucion = Lector.INFINITO_CENTESIMOS; // En centésimos
+
+    // --- Estadísticas de poda ---
+    public long combinacionesPodadas = 0;
+    public long podasGlobales = 0;
+    public long podasLocales = 0;
+    public long nodosExplorados = 0;
+
+    /**
+     * Escribe el checkpoint en un archivo temporal, lo baja a disco (force) y luego lo
+     * renombra sobre el definitivo, así un corte a mitad de escritura nunca deja un
+     * archivo a medias ni un renombre que apunte a datos que no llegaron al disco.
+     */
+    public static void guardar(String nombreArchivo, Lector.Problema p, Checkpoint c) {
+        Path destino = Paths.get(nombreArchivo);
+        Path temporal = Paths.get(nombreArchivo + ".tmp");
+
+        try (FileOutputStream archivo = new FileOutputStream(temporal.toFile());
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(archivo, StandardCharsets.UTF_8)))) {
+            out.println("// --- CHECKPOINT ---");
+            out.printf("NODOS %d\nHUBS %d\nPAQUETES %d\nCAPACIDAD_CAMION %d\nDEPOSITO_ID %d\n",
+                    p.numNodos, p.hubs.size(), p.numPaquetes, p.capacidadCamion, p.depositoId);
+            out.println("HUELLA " + Long.toHexString(huella(p)));
+
+            // Rangos "desde-hasta" para que el archivo no crezca con 2^HUBS índices
+            out.println("\n// --- COMBINACIONES COMPLETADAS ---");
+            BitSet hechas = c.combinacionesCompletadas;
+            for (int i = hechas.nextSetBit(0); i >= 0; ) {
+                int fin = hechas.nextClearBit(i) - 1;
+                out.println(i + "-" + fin);
+                i = hechas.nextSetBit(fin + 1);
+            }
+
+            out.println("\n// --- COTAS ---");
+            out.println("COMBINACIONES_PODADAS " + c.combinacionesPodadas);
+            out.println("PODAS_GLOBALES " + c.podasGlobales);
+            out.println("PODAS_LOCALES " + c.podasLocales);
+            out.println("NODOS_EXPLORADOS " + c.nodosExplorados);
+
+            out.println("\n// --- MEJOR SOLUCION ---");
+            if (c.mejorSolucion != null) {
+                escribirSolucion(out, c.mejorSolucion);
+            }
+
+            out.flush();
+            if (out.checkError()) throw new IOException("falló la escritura de " + temporal);
+            archivo.getChannel().force(true);
+        } catch (IOException e) {
+            System.err.println("Error al escribir el checkpoint: " + e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Error al renombrar el checkpoint: " + e.getMessage());
+        }
+    }
+
+    //Lee un checkpoint. Retorna null si no existe o si pertenece a otro problema.
+    public static Checkpoint cargar(String nombreArchivo, Lector.Problema p) {
+        Checkpoint c = new Checkpoint();
+
+        enum Seccion { CABECERA, COMBINACIONES, COTAS, SOLUCION };
+        Seccion seccionActual = Seccion.CABECERA;
+        boolean huellaVerificada = false;
+
+        try (BufferedReader br = new BufferedReader(new FileReader(nombreArchivo))) {
+            String linea;
+            while ((linea = br.readLine()) != null) {
+                linea = linea.trim();
+                if (linea.isEmpty()) continue;
+
+                if (linea.startsWith("// --- COMBINACIONES")) {
+                    // Sin huella (checkpoint viejo) no hay forma de saber de qué instancia es
+                    if (!huellaVerificada) {
+                        System.err.println("Advertencia: El checkpoint '" + nombreArchivo + "' no tiene huella del problema, se ignora.");
+                        return null;
+                    }
+                    seccionActual = Seccion.COMBINACIONES;
+                    continue;
+                }
+                if (linea.startsWith("// --- COTAS")) { seccionActual = Seccion.COTAS; continue; }
+                if (linea.startsWith("// --- MEJOR SOLUCION")) { seccionActual = Seccion.SOLUCION; continue; }
+                if (linea.startsWith("//")) continue;
+
+                String[] partes = linea.split("\\s+");
+                switch (seccionActual) {
+                    case CABECERA:
+                        if (!coincideConProblema(partes, p)) {
+                            System.err.println("Advertencia: El checkpoint '" + nombreArchivo + "' es de otro problema, se ignora.");
+                            return null;
+                        }
+                        if (partes[0].equals("HUELLA")) huellaVerificada = true;
+                        break;
+
+                    case COMBINACIONES:
+                        String[] rango = partes[0].split("-");
+                        c.combinacionesCompletadas.set(Integer.parseInt(rango[0]), Integer.parseInt(rango[1]) + 1);
+                        break;
+
+                    case COTAS:
+                        long valor = Long.parseLong(partes[1]);
+                        if (partes[0].equals("COMBINACIONES_PODADAS")) c.combinacionesPodadas = valor;
+                        else if (partes[0].equals("PODAS_GLOBALES")) c.podasGlobales = valor;
+                        else if (partes[0].equals("PODAS_LOCALES")) c.podasLocales = valor;
+                        else if (partes[0].equals("NODOS_EXPLORADOS")) c.nodosExplorados = valor;
+                        break;
+
+                    case SOLUCION:
+                        if (c.mejorSolucion == null) c.mejorSolucion = new Solucion();
+                        leerLineaSolucion(partes, c.mejorSolucion, p);
+                        break;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Advertencia: No se pudo leer el checkpoint '" + nombreArchivo + "': " + e.getMessage());
+            return null;
+        }
+
+        if (c.mejorSolucion != null) {
+            c.costoMejorSolucion = c.mejorSolucion.getCostoTotalCentesimos();
+        }
+        return c;
+    }
+
+    // --- Serialización de Solucion ---
+
+    //Escribe una Solucion en formato de texto. Los costos van en centésimos para no perder precisión.
+    public static void escribirSolucion(PrintWriter out, Solucion sol) {
+        out.println("DISTANCIA " + sol.costoDistanciaCentesimos);
+        out.println("ACTIVACION " + sol.costoActivacionCentesimos);
+        for (Lector.Hub hub : sol.hubsActivados) {
+            out.println("HUB " + hub.idNodo());
+        }
+        for (Solucion.Ruta r : sol.rutas) {
+            StringBuilder sb = new StringBuilder("RUTA ");
+            sb.append(r.paquetesEntregados).append(' ').append(r.costoCentesimos);
+            for (int nodo : r.nodosVisitados) {
+                sb.append(' ').append(nodo);
+            }
+            out.println(sb);
+        }
+    }
+
+    //Interpreta una línea escrita por escribirSolucion y la vuelca sobre 'sol'.
+    public static void leerLineaSolucion(String[] partes, Solucion sol, Lector.Problema p) {
+        switch (partes[0]) {
+            case "DISTANCIA":
+                sol.costoDistanciaCentesimos = Long.parseLong(partes[1]);
+                break;
+            case "ACTIVACION":
+                sol.costoActivacionCentesimos = Long.parseLong(partes[1]);
+                break;
+            case "HUB":
+                int idNodo = Integer.parseInt(partes[1]);
+                for (Lector.Hub hub : p.hubs) {
+                    if (hub.idNodo() == idNodo) sol.hubsActivados.add(hub);
+                }
+                break;
+            case "RUTA":
+                Solucion.Ruta r = new Solucion.Ruta();
+                r.paquetesEntregados = Integer.parseInt(partes[1]);
+                r.costoCentesimos = Long.parseLong(partes[2]);
+                for (int i = 3; i < partes.length; i++) {
+                    r.nodosVisitados.add(Integer.parseInt(partes[i]));
+                }
+                sol.rutas.add(r);
+                break;
+        }
+    }
+
+    private static boolean coincideConProblema(String[] partes, Lector.Problema p) {
+        if (partes.length < 2) return true;
+        if (partes[0].equals("HUELLA")) return Long.parseUnsignedLong(partes[1], 16) == huella(p);
+        int valor = Integer.parseInt(partes[1]);
+        switch (partes[0]) {
+            case "NODOS": return valor == p.numNodos;
+            case "HUBS": return valor == p.hubs.size();
+            case "PAQUETES": return valor == p.numPaquetes;
+            case "CAPACIDAD_CAMION": return valor == p.capacidadCamion;
+            case "DEPOSITO_ID": return valor == p.depositoId;
+            default: return true;
+        }
+    }
+
+    /**
+     * Huella de la instancia: dos problemas con los mismos tamaños (nodos, hubs, paquetes...)
+     * casi nunca comparten costos de hubs, destinos y distancias. FNV-1a de 64 bits sobre
+     * los costos de hubs, los destinos de los paquetes y la matriz de distancias, todo en centésimos.
+     */
+    static long huella(Lector.Problema p) {
+        long h = 0xcbf29ce484222325L;
+        for (int j = 0; j < p.hubs.size(); j++) {
+            h = mezclar(h, p.hubs.get(j).idNodo());
+            h = mezclar(h, Lector.costoHubCentesimos(p, j));
+        }
+        for (Lector.Paquete paquete : p.paquetes) {
+            h = mezclar(h, paquete.idNodoDestino());
+        }
+        for (int u = 0; u < p.numNodos; u++) {
+            for (int v = 0; v < p.numNodos; v++) {
+                h = mezclar(h, Lector.distanciaCentesimos(p, u, v));
+            }
+        }
+        return h;
+    }
+
+    private static long mezclar(long h, long valor) {
+        for (int b = 0; b < 8; b++) {
+            h ^= (valor >>> (8 * b)) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
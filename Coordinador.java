@@ -0,0 +1,246 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Reparte las 2^HUBS combinaciones de encontrarMejorSolucion entre varios procesos
+ * Trabajador conectados por TCP local. Entrega rangos de posiciones del orden Gray,
+ * reenvía a todos cada mejora de costo (para que poden con la cota global) y se queda
+ * con la mejor Solucion. Si un trabajador se cae, su rango vuelve a la cola; si no queda
+ * ninguno vivo, el coordinador termina los rangos pendientes por su cuenta.
+ */
+public class Coordinador {
+
+    // Rangos por trabajador: más chicos reparten mejor la carga, más grandes aprovechan la caché
+    private static final int RANGOS_POR_TRABAJADOR = 8;
+
+    private final Lector.Problema problema;
+    private final String nombreArchivo;
+    private final int puerto;
+    private final int numTrabajadores;
+
+    // --- Estado compartido (protegido por 'this') ---
+    private final Deque<int[]> rangosPendientes = new ArrayDeque<>();
+    private int rangosTotales = 0;
+    private int rangosCompletados = 0;
+    private Solucion mejorSolucion;
+    private long costoMejor = Lector.INFINITO_CENTESIMOS;
+    private final List<Conexion> conexiones = new ArrayList<>();
+    private final List<Process> procesos = new ArrayList<>();
+
+    private static class Conexion {
+        Socket socket;
+        PrintWriter out;
+        int[] rangoAsignado;
+
+        void enviar(String linea) {
+            synchronized (out) {
+                out.println(linea);
+                out.flush();
+            }
+        }
+    }
+
+
+    /**
+     * @param problema Problema ya cargado (con caminos mínimos), para armar la solución final.
+     * @param nombreArchivo Archivo del problema dentro de Output, que leen los trabajadores.
+     * @param puerto Puerto TCP local (0 = cualquiera libre).
+     * @param numTrabajadores Procesos Trabajador a lanzar en esta máquina (0 = esperar trabajadores externos).
+     */
+    public Coordinador(Lector.Problema problema, String nombreArchivo, int puerto, int numTrabajadores) {
+        this.problema = problema;
+        this.nombreArchivo = nombreArchivo;
+        this.puerto = puerto;
+        this.numTrabajadores = numTrabajadores;
+    }
+
+    public Solucion resolver() throws IOException, InterruptedException {
+        int numCombinaciones = 1 << problema.hubs.size();
+        int tamRango = Math.max(1, numCombinaciones / (Math.max(1, numTrabajadores) * RANGOS_POR_TRABAJADOR));
+        for (int desde = 0; desde < numCombinaciones; desde += tamRango) {
+            rangosPendientes.add(new int[] { desde, Math.min(desde + tamRango, numCombinaciones) });
+        }
+        rangosTotales = rangosPendientes.size();
+
+        // Solución base (sin hubs), como en Solver.encontrarMejorSolucion: así cada trabajador
+        // recibe una cota antes de su primer rango en lugar de arrancar sin poda
+        Solver base = new Solver(problema);
+        base.setSilencioso(true);
+        Solucion solucionBase = base.resolverCombinacion(0);
+        if (solucionBase != null) registrarMejora(solucionBase);
+
+        try (ServerSocket servidor = new ServerSocket(puerto, 50, InetAddress.getLoopbackAddress())) {
+            System.out.printf("Coordinador escuchando en el puerto %d: %d combinaciones en %d rangos\n",
+                    servidor.getLocalPort(), numCombinaciones, rangosTotales);
+            lanzarTrabajadores(servidor.getLocalPort());
+
+            Thread aceptador = new Thread(() -> aceptar(servidor));
+            aceptador.setDaemon(true);
+            aceptador.start();
+
+            synchronized (this) {
+                while (rangosCompletados < rangosTotales) {
+                    wait(1000);
+                    if (noQuedanTrabajadores() && !rangosPendientes.isEmpty()) {
+                        System.out.println("No quedan trabajadores vivos; el coordinador resuelve los rangos pendientes.");
+                        resolverLocalmente();
+                    }
+                }
+                for (Conexion c : conexiones) c.enviar("FIN");
+            }
+        } finally {
+            for (Process p : procesos) {
+                if (!p.waitFor(5, TimeUnit.SECONDS)) p.destroy();
+            }
+        }
+        return mejorSolucion;
+    }
+
+
+    // --- Trabajadores ---
+
+    private void lanzarTrabajadores(int puertoReal) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classpath = System.getProperty("java.class.path");
+        for (int i = 0; i < numTrabajadores; i++) {
+            ProcessBuilder pb = new ProcessBuilder(java, "-cp", classpath, "Trabajador",
+                    "127.0.0.1", String.valueOf(puertoReal), nombreArchivo);
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+            procesos.add(pb.start());
+        }
+    }
+
+    // Solo aplica a trabajadores lanzados por este coordinador: a los externos se los espera
+    private boolean noQuedanTrabajadores() {
+        if (procesos.isEmpty() || !conexiones.isEmpty()) return false;
+        for (Process p : procesos) {
+            if (p.isAlive()) return false;
+        }
+        return true;
+    }
+
+    private void aceptar(ServerSocket servidor) {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                Thread t = new Thread(() -> atender(socket));
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                return; // Servidor cerrado
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        Conexion c = new Conexion();
+        c.socket = socket;
+        try {
+            c.out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            synchronized (this) {
+                conexiones.add(c);
+                if (mejorSolucion != null) c.enviar("COTA " + costoMejor);
+            }
+            asignarSiguiente(c);
+
+            String linea;
+            while ((linea = in.readLine()) != null) {
+                String[] partes = linea.trim().split("\\s+");
+                if (partes[0].equals("MEJORA")) {
+                    Solucion sol = leerSolucion(in);
+                    if (sol != null) registrarMejora(sol);
+                } else if (partes[0].equals("HECHO")) {
+                    synchronized (this) {
+                        c.rangoAsignado = null;
+                        rangosCompletados++;
+                        notifyAll();
+                    }
+                    asignarSiguiente(c);
+                }
+            }
+        } catch (IOException e) {
+            // El trabajador se cayó: se maneja abajo igual que un cierre normal
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                conexiones.remove(c);
+                if (c.rangoAsignado != null) {
+                    System.out.printf("Se perdió un trabajador; se reasigna el rango [%d, %d)\n",
+                            c.rangoAsignado[0], c.rangoAsignado[1]);
+                    rangosPendientes.addFirst(c.rangoAsignado);
+                }
+                notifyAll();
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Ya estaba cerrado
+            }
+        }
+    }
+
+    // Espera hasta que haya un rango libre (puede volver uno de un trabajador caído) o no quede trabajo
+    private synchronized void asignarSiguiente(Conexion c) throws InterruptedException {
+        while (rangosPendientes.isEmpty() && rangosCompletados < rangosTotales) {
+            wait();
+        }
+        if (rangosPendientes.isEmpty()) {
+            c.enviar("FIN");
+            return;
+        }
+        c.rangoAsignado = rangosPendientes.poll();
+        c.enviar("RANGO " + c.rangoAsignado[0] + " " + c.rangoAsignado[1]);
+    }
+
+    private synchronized void registrarMejora(Solucion sol) {
+        long costo = sol.getCostoTotalCentesimos();
+        if (costo >= costoMejor) return;
+        costoMejor = costo;
+        mejorSolucion = sol;
+        System.out.printf("  -> NUEVA MEJOR SOLUCIÓN GLOBAL! Costo: %.2f\n", sol.getCostoTotal());
+        for (Conexion c : conexiones) {
+            c.enviar("COTA " + costo);
+        }
+    }
+
+    private Solucion leerSolucion(BufferedReader in) throws IOException {
+        Solucion sol = new Solucion();
+        String linea;
+        while ((linea = in.readLine()) != null) {
+            linea = linea.trim();
+            if (linea.equals("FIN_SOLUCION")) return sol;
+            if (!linea.isEmpty()) Checkpoint.leerLineaSolucion(linea.split("\\s+"), sol, problema);
+        }
+        return null; // Conexión cortada a mitad de la solución
+    }
+
+    // Se llama con el lock tomado: no hay trabajadores que compitan por los rangos
+    private void resolverLocalmente() {
+        Solver solver = new Solver(problema);
+        solver.setSilencioso(true);
+        solver.setOyenteMejora(this::registrarMejora);
+        while (!rangosPendientes.isEmpty()) {
+            int[] rango = rangosPendientes.poll();
+            solver.actualizarCotaExterna(costoMejor);
+            solver.resolverRango(rango[0], rango[1]);
+            rangosCompletados++;
+        }
+    }
+}
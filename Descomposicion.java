@@ -0,0 +1,358 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * "Cluster-first, route-second" para redes con muchos destinos:
+ *  1. Agrupa los paquetes alrededor del depósito y de los hubs (por camino mínimo)
+ *     y parte los grupos grandes con un barrido angular hasta respetar el tamaño máximo.
+ *  2. Resuelve cada cluster como un problema chico e independiente con el Solver exacto,
+ *     todos en paralelo.
+ *  3. Encadena las soluciones en una sola y repara cada frontera entre clusters vecinos
+ *     re-resolviendo exactamente la última ruta de uno junto con la primera del siguiente.
+ */
+public class Descomposicion {
+
+    // Las fronteras juntan la última ruta de un cluster con la primera del siguiente: cada
+    // una puede traer hasta tamMaxCluster paquetes, así que la ventana tiene su propio límite
+    private static final int FACTOR_VENTANA_REPARACION = 2;
+
+    private final Lector.Problema problema;
+    private final int tamMaxCluster;
+    private final Terminales terminales; // Distancias exactas entre todos los terminales
+    private final IndiceEspacial indice; // Coordenadas para el barrido angular
+
+    private static class Cluster {
+        int ancla;          // Índice denso del depósito o hub que lo originó
+        int hub = -1;       // Hub j del ancla (-1 si es el depósito)
+        List<Lector.Paquete> paquetes = new ArrayList<>();
+        Solucion solucion;
+    }
+
+
+    /**
+     * @param problema Problema completo (con caminos mínimos ya calculados).
+     * @param tamMaxCluster Máximo de paquetes por cluster; mantiene rápidos los sub-problemas exactos.
+     */
+    public Descomposicion(Lector.Problema problema, int tamMaxCluster) {
+        if (tamMaxCluster <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo de cluster debe ser positivo: " + tamMaxCluster);
+        }
+        this.problema = problema;
+        this.tamMaxCluster = tamMaxCluster;
+        this.terminales = new Terminales(problema);
+        this.indice = IndiceEspacial.deTerminales(problema);
+    }
+
+    public Solucion resolver() {
+        List<Cluster> clusters = agrupar();
+        System.out.printf("Descomposición: %d paquetes en %d clusters (máx. %d por cluster)\n",
+                problema.paquetes.size(), clusters.size(), tamMaxCluster);
+
+        resolverEnParalelo(clusters);
+        for (Cluster c : clusters) {
+            if (c.solucion == null) {
+                System.out.println("Un cluster no tiene solución; no se puede armar la solución completa.");
+                return null;
+            }
+        }
+
+        List<Lector.Hub> hubsActivados = new ArrayList<>();
+        List<Integer> fronteras = new ArrayList<>();
+        List<Solucion.Ruta> rutas = encadenar(clusters, hubsActivados, fronteras);
+        List<Solucion.Ruta> reparadas = repararFronteras(rutas, fronteras, hubsActivados);
+
+        Solucion sol = new Solucion();
+        sol.hubsActivados = hubsUsados(reparadas, hubsActivados);
+        sol.rutas = reparadas;
+        sol.costoDistanciaCentesimos = recalcularCostos(reparadas);
+        for (Lector.Hub hub : sol.hubsActivados) {
+            sol.costoActivacionCentesimos += Lector.costoHubCentesimos(problema, problema.hubs.indexOf(hub));
+        }
+        return sol;
+    }
+
+
+    // --- 1. AGRUPAMIENTO ---
+
+    private List<Cluster> agrupar() {
+        // Cada destino va al depósito/hub más cercano por camino mínimo
+        Map<Integer, Cluster> porAncla = new LinkedHashMap<>();
+        porAncla.put(terminales.indiceDeposito, nuevoCluster(terminales.indiceDeposito, -1));
+        for (int j = 0; j < problema.hubs.size(); j++) {
+            porAncla.putIfAbsent(terminales.indiceHub[j], nuevoCluster(terminales.indiceHub[j], j));
+        }
+
+        for (Lector.Paquete p : problema.paquetes) {
+            int destino = terminales.indice(p.idNodoDestino());
+            int mejorAncla = -1;
+            long mejorDist = Long.MAX_VALUE;
+            for (int ancla : porAncla.keySet()) {
+                long d = terminales.distancia(ancla, destino);
+                if (d < mejorDist) {
+                    mejorDist = d;
+                    mejorAncla = ancla;
+                }
+            }
+            porAncla.get(mejorAncla).paquetes.add(p);
+        }
+
+        // Los grupos grandes se parten en porciones consecutivas de un barrido angular
+        List<Cluster> clusters = new ArrayList<>();
+        for (Cluster grupo : porAncla.values()) {
+            if (grupo.paquetes.isEmpty()) continue;
+            int idAncla = terminales.idOriginal[grupo.ancla];
+            grupo.paquetes.sort(Comparator.comparingDouble((Lector.Paquete p) -> angulo(idAncla, p.idNodoDestino()))
+                    .thenComparingInt(Lector.Paquete::idNodoDestino));
+
+            for (int desde = 0; desde < grupo.paquetes.size(); desde += tamMaxCluster) {
+                Cluster c = nuevoCluster(grupo.ancla, grupo.hub);
+                c.paquetes.addAll(grupo.paquetes.subList(desde, Math.min(desde + tamMaxCluster, grupo.paquetes.size())));
+                clusters.add(c);
+            }
+        }
+        return clusters;
+    }
+
+    private static Cluster nuevoCluster(int ancla, int hub) {
+        Cluster c = new Cluster();
+        c.ancla = ancla;
+        c.hub = hub;
+        return c;
+    }
+
+    private double angulo(int idCentro, int idNodo) {
+        return Math.atan2(indice.getY(idNodo) - indice.getY(idCentro), indice.getX(idNodo) - indice.getX(idCentro));
+    }
+
+
+    // --- 2. SUB-PROBLEMAS EN PARALELO ---
+
+    private void resolverEnParalelo(List<Cluster> clusters) {
+        int hilos = Math.max(1, Math.min(clusters.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Solucion>> futuros = new ArrayList<>();
+            for (Cluster c : clusters) {
+                List<Lector.Hub> hubs = new ArrayList<>();
+                List<Long> costos = new ArrayList<>();
+                if (c.hub >= 0) {
+                    hubs.add(problema.hubs.get(c.hub));
+                    costos.add(Lector.costoHubCentesimos(problema, c.hub));
+                }
+                Lector.Problema sub = subProblema(problema.depositoId, hubs, costos, c.paquetes);
+                futuros.add(pool.submit(() -> {
+                    Solver solver = new Solver(sub);
+                    solver.setSilencioso(true);
+                    return solver.encontrarMejorSolucion();
+                }));
+            }
+            for (int i = 0; i < clusters.size(); i++) {
+                clusters.get(i).solucion = futuros.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió la resolución de los clusters", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la resolución de un cluster", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Comparte el grafo (solo lectura) y cambia depósito, hubs y paquetes
+    private Lector.Problema subProblema(int depositoId, List<Lector.Hub> hubs, List<Long> costosHub,
+                                        List<Lector.Paquete> paquetes) {
+        Lector.Problema sub = new Lector.Problema();
+        sub.numNodos = problema.numNodos;
+        sub.capacidadCamion = problema.capacidadCamion;
+        sub.depositoId = depositoId;
+        sub.nodos = problema.nodos;
+        sub.grafoDistancias = problema.grafoDistancias;
+        sub.grafoCentesimos = problema.grafoCentesimos;
+        sub.hubs = hubs;
+        sub.numHubs = hubs.size();
+        sub.costosHubCentesimos = costosHub;
+        sub.paquetes = paquetes;
+        sub.numPaquetes = paquetes.size();
+        return sub;
+    }
+
+
+    // --- 3. ENCADENADO Y REPARACIÓN ---
+
+    /**
+     * Une las soluciones en el orden del vecino más cercano. Cada cluster empezaba en el
+     * depósito; al encadenarlo, su primera ruta arranca en el punto de recarga donde
+     * terminó el anterior. Eso puede alargarla (o acortarla): los costos se recalculan
+     * después con recalcularCostos, que es lo que vale.
+     * En 'fronteras' deja la posición de la última ruta de cada cluster (salvo el último).
+     */
+    private List<Solucion.Ruta> encadenar(List<Cluster> clusters, List<Lector.Hub> hubsActivados,
+                                          List<Integer> fronteras) {
+        List<Solucion.Ruta> rutas = new ArrayList<>();
+        List<Cluster> pendientes = new ArrayList<>(clusters);
+        int finActual = problema.depositoId;
+
+        while (!pendientes.isEmpty()) {
+            Cluster siguiente = null;
+            long mejorDist = Long.MAX_VALUE;
+            for (Cluster c : pendientes) {
+                long d = distancia(finActual, primeraEntrega(c.solucion));
+                if (d < mejorDist) {
+                    mejorDist = d;
+                    siguiente = c;
+                }
+            }
+            pendientes.remove(siguiente);
+
+            for (Lector.Hub hub : siguiente.solucion.hubsActivados) {
+                if (!hubsActivados.contains(hub)) hubsActivados.add(hub);
+            }
+
+            if (!rutas.isEmpty()) fronteras.add(rutas.size() - 1);
+            List<Solucion.Ruta> propias = siguiente.solucion.rutas;
+            for (int i = 0; i < propias.size(); i++) {
+                Solucion.Ruta r = new Solucion.Ruta(propias.get(i));
+                if (i == 0 && !rutas.isEmpty()) {
+                    r.nodosVisitados.set(0, finActual);
+                    if (r.paquetesEntregados == 0) continue; // Solo iba del depósito a un hub
+                }
+                rutas.add(r);
+            }
+            List<Integer> ultima = rutas.get(rutas.size() - 1).nodosVisitados;
+            finActual = ultima.get(ultima.size() - 1);
+        }
+        return rutas;
+    }
+
+    private static int primeraEntrega(Solucion sol) {
+        for (Solucion.Ruta r : sol.rutas) {
+            if (r.paquetesEntregados > 0) return r.nodosVisitados.get(1);
+        }
+        return sol.rutas.get(0).nodosVisitados.get(0);
+    }
+
+    /**
+     * En cada frontera re-resuelve exactamente las entregas de la última ruta de un cluster
+     * junto con las de la primera del siguiente, desde el inicio de la primera y con todos
+     * los puntos de recarga ya activos (sin costo extra). Solo se acepta el cambio si baja
+     * la distancia total. Las ventanas se resuelven con el pool de viajes (exacto) y solo
+     * se saltean las que superan FACTOR_VENTANA_REPARACION * tamMaxCluster paquetes (o lo
+     * que admite PoolViajes).
+     */
+    private List<Solucion.Ruta> repararFronteras(List<Solucion.Ruta> rutas, List<Integer> fronteras,
+                                                 List<Lector.Hub> hubsActivados) {
+        if (fronteras.isEmpty()) return rutas;
+
+        List<Lector.Hub> recargas = new ArrayList<>(hubsActivados);
+        recargas.add(new Lector.Hub(problema.depositoId, 0.0));
+        List<Long> sinCosto = new ArrayList<>();
+        for (int j = 0; j < recargas.size(); j++) sinCosto.add(0L);
+        long todas = (1L << recargas.size()) - 1;
+
+        long costoActual = recalcularCostos(rutas);
+        int reparadas = 0;
+        // De atrás hacia adelante: reemplazar una ventana no corre las posiciones anteriores
+        for (int f = fronteras.size() - 1; f >= 0; f--) {
+            int i = fronteras.get(f);
+            Solucion.Ruta a = rutas.get(i);
+            Solucion.Ruta b = rutas.get(i + 1);
+            int limiteVentana = Math.min(FACTOR_VENTANA_REPARACION * tamMaxCluster, PoolViajes.MAX_PAQUETES);
+            if (a.paquetesEntregados + b.paquetesEntregados > limiteVentana) continue;
+
+            List<Lector.Paquete> ventana = new ArrayList<>();
+            agregarEntregas(a, ventana);
+            agregarEntregas(b, ventana);
+            if (ventana.isEmpty()) continue;
+
+            Lector.Problema sub = subProblema(a.nodosVisitados.get(0), recargas, sinCosto, ventana);
+            Solver solver = new Solver(sub);
+            solver.setSilencioso(true);
+            solver.setModo(Solver.Modo.POOL, 0);
+            Solucion local = solver.resolverCombinacion(todas);
+            if (local == null) continue;
+
+            List<Solucion.Ruta> nuevas = new ArrayList<>(local.rutas);
+            nuevas.removeIf(r -> r.paquetesEntregados == 0); // Como en encadenar: sin entregas no aporta nada
+            if (nuevas.isEmpty()) continue;
+            Solucion.Ruta ultimaNueva = nuevas.get(nuevas.size() - 1);
+            List<Integer> ultima = ultimaNueva.nodosVisitados;
+            if (i + 2 < rutas.size() && ultima.size() > ultimaNueva.paquetesEntregados + 1) {
+                // La ruta que sigue ya empieza en un punto de recarga: el retorno sobra
+                ultima.remove(ultima.size() - 1);
+            }
+
+            List<Solucion.Ruta> candidata = new ArrayList<>(rutas.subList(0, i));
+            candidata.addAll(nuevas);
+            candidata.addAll(rutas.subList(i + 2, rutas.size()));
+            long costoCandidata = recalcularCostos(candidata);
+            if (costoCandidata < costoActual) {
+                rutas = candidata;
+                costoActual = costoCandidata;
+                reparadas++;
+            }
+        }
+        System.out.printf("Reparación de fronteras: %d ventanas mejoradas\n", reparadas);
+        return rutas;
+    }
+
+    /**
+     * Los hubs de 'activados' donde alguna ruta empieza o termina. La reparación puede
+     * quitar la única visita a un hub (por ejemplo el retorno final de un cluster), y ese
+     * hub ya no se cobra.
+     */
+    private List<Lector.Hub> hubsUsados(List<Solucion.Ruta> rutas, List<Lector.Hub> activados) {
+        Set<Integer> puntos = new HashSet<>();
+        for (Solucion.Ruta r : rutas) {
+            List<Integer> nodos = r.nodosVisitados;
+            puntos.add(nodos.get(0));
+            if (nodos.size() > r.paquetesEntregados + 1) puntos.add(nodos.get(nodos.size() - 1));
+        }
+        List<Lector.Hub> usados = new ArrayList<>();
+        for (Lector.Hub hub : activados) {
+            if (puntos.contains(hub.idNodo())) usados.add(hub);
+        }
+        return usados;
+    }
+
+    // Las entregas de una ruta son sus nodos salvo el inicio (y el retorno final, si lo tiene)
+    private void agregarEntregas(Solucion.Ruta r, List<Lector.Paquete> destino) {
+        for (int i = 1; i <= r.paquetesEntregados; i++) {
+            destino.add(new Lector.Paquete(destino.size(), problema.depositoId, r.nodosVisitados.get(i)));
+        }
+    }
+
+    /**
+     * Recalcula el costo de cada ruta y devuelve la distancia total, que además suma los
+     * tramos entre el final de una ruta y el inicio de la siguiente (viaje a recargar).
+     */
+    private long recalcularCostos(List<Solucion.Ruta> rutas) {
+        long total = 0;
+        int anterior = -1;
+        for (Solucion.Ruta r : rutas) {
+            r.costoCentesimos = 0;
+            for (int i = 0; i < r.nodosVisitados.size(); i++) {
+                int nodo = r.nodosVisitados.get(i);
+                if (i > 0) r.costoCentesimos += distancia(anterior, nodo);
+                else if (anterior >= 0) total += distancia(anterior, nodo);
+                anterior = nodo;
+            }
+            total += r.costoCentesimos;
+        }
+        return total;
+    }
+
+    private long distancia(int idA, int idB) {
+        return terminales.distancia(terminales.indice(idA), terminales.indice(idB));
+    }
+}
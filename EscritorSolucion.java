@@ -1,54 +1,329 @@
-import java.io.PrintWriter;
 import java.io.IOException;
-import java.util.stream.Collectors;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 
+/**
+ * Escribe la Solucion directamente desde las listas de nodos de cada Ruta a un FileChannel
+ * con un buffer propio: los números se pasan a dígitos dentro del buffer, sin armar
+ * Strings intermedios. Formatos:
+ *
+ *  - TEXTO: el formato de siempre (solucion.txt), con decimales según el locale.
+ *  - JSON: costos exactos con punto decimal (salen de los centésimos, no de un double)
+ *    y tiempos por fase en segundos.
+ *  - BINARIO: big-endian, legible con DataInputStream:
+ *      "VRPS", int version,
+ *      long distanciaCentesimos, long activacionCentesimos,
+ *      int numHubs, int[numHubs] idNodo,
+ *      int numRutas, por ruta: int paquetes, long costoCentesimos, int numNodos, int[numNodos],
+ *      int numFases, por fase: short largo + nombre en UTF-8 (como writeUTF si es ASCII), long nanos.
+ */
 public class EscritorSolucion {
 
+    public enum Formato { TEXTO, JSON, BINARIO }
+
+    // Fase cuyo tiempo se informa como TIEMPO_EJECUCION en el formato de texto
+    public static final String FASE_SOLVER = "solver";
+
+    private static final int TAMANIO_BUFFER = 1 << 16;
+    private static final int VERSION_BINARIO = 1;
+
     /**
       * @param sol La solución óptima encontrada.
       * @param tiempoEjecucion El tiempo que tardó el solver (en segundos).
      */
     public static void escribir(Solucion sol, double tiempoEjecucion) {
-        try (PrintWriter out = new PrintWriter("Output/solucion.txt")) {
-
-            // --- 1. HUBS ACTIVADOS ---
-            out.println("// HUBS ACTIVADOS");
-            if (sol.hubsActivados.isEmpty()) {
-                out.println("Ninguno");
-            } else {
-                for (Lector.Hub hub : sol.hubsActivados) {
-                    out.println(hub.idNodo());
-                }
+        Map<String, Long> tiempos = new LinkedHashMap<>();
+        tiempos.put(FASE_SOLVER, (long) (tiempoEjecucion * 1_000_000_000L));
+        escribir(sol, tiempos, Formato.TEXTO, "Output/solucion.txt");
+    }
+
+    /**
+     * @param sol La solución a escribir.
+     * @param tiemposNanos Duración de cada fase (en orden), en nanosegundos.
+     * @param formato TEXTO, JSON o BINARIO.
+     * @param archivo Ruta del archivo de salida (se reemplaza si existe).
+     */
+    public static void escribir(Solucion sol, Map<String, Long> tiemposNanos, Formato formato, String archivo) {
+        try (Canal out = new Canal(Paths.get(archivo))) {
+            switch (formato) {
+                case TEXTO:
+                    escribirTexto(out, sol, tiemposNanos);
+                    break;
+                case JSON:
+                    escribirJson(out, sol, tiemposNanos);
+                    break;
+                case BINARIO:
+                    escribirBinario(out, sol, tiemposNanos);
+                    break;
+            }
+        } catch (IOException e) {
+            System.err.println("Error al escribir el archivo de solución: " + e.getMessage());
+        }
+    }
+
+    //Nombre de archivo por defecto para cada formato, dentro de Output.
+    public static String archivoPorDefecto(Formato formato) {
+        switch (formato) {
+            case JSON:
+                return "Output/solucion.json";
+            case BINARIO:
+                return "Output/solucion.bin";
+            default:
+                return "Output/solucion.txt";
+        }
+    }
+
+
+    // --- TEXTO ---
+
+    private static void escribirTexto(Canal out, Solucion sol, Map<String, Long> tiemposNanos) throws IOException {
+        String fin = System.lineSeparator();
+
+        // --- 1. HUBS ACTIVADOS ---
+        out.ascii("// HUBS ACTIVADOS").ascii(fin);
+        if (sol.hubsActivados.isEmpty()) {
+            out.ascii("Ninguno").ascii(fin);
+        } else {
+            for (Lector.Hub hub : sol.hubsActivados) {
+                out.entero(hub.idNodo()).ascii(fin);
             }
+        }
+
+        // --- 2. RUTA ÓPTIMA ---
+        // Las rutas se encadenan: de la segunda en adelante se omite su primer nodo
+        out.ascii("\n// RUTA OPTIMA").ascii(fin);
+        boolean primero = true;
+        for (int i = 0; i < sol.rutas.size(); i++) {
+            List<Integer> nodos = sol.rutas.get(i).nodosVisitados;
+            for (int j = (i == 0) ? 0 : 1; j < nodos.size(); j++) {
+                if (!primero) out.ascii(" -> ");
+                out.entero(nodos.get(j));
+                primero = false;
+            }
+        }
+        out.ascii(fin);
+
+        // --- 3. MÉTRICAS ---
+        long nanosSolver = tiemposNanos.getOrDefault(FASE_SOLVER, 0L);
+        out.ascii("\n// METRICAS").ascii(fin);
+        out.texto(String.format("COSTO_TOTAL: %.2f\n", sol.getCostoTotal()));
+        out.texto(String.format("DISTANCIA_RECORRIDA: %.2f\n", sol.getCostoTotalDistancia()));
+        out.texto(String.format("COSTO_HUBS: %.2f\n", sol.getCostoTotalActivacion()));
+        out.texto(String.format("TIEMPO_EJECUCION: %f segundos\n", nanosSolver / 1_000_000_000.0));
+    }
+
+
+    // --- JSON ---
+
+    private static void escribirJson(Canal out, Solucion sol, Map<String, Long> tiemposNanos) throws IOException {
+        out.ascii("{\n  \"costoTotal\": ").centesimos(sol.getCostoTotalCentesimos());
+        out.ascii(",\n  \"distancia\": ").centesimos(sol.costoDistanciaCentesimos);
+        out.ascii(",\n  \"costoHubs\": ").centesimos(sol.costoActivacionCentesimos);
+
+        out.ascii(",\n  \"hubsActivados\": [");
+        for (int i = 0; i < sol.hubsActivados.size(); i++) {
+            if (i > 0) out.ascii(", ");
+            out.entero(sol.hubsActivados.get(i).idNodo());
+        }
+
+        out.ascii("],\n  \"rutas\": [");
+        for (int i = 0; i < sol.rutas.size(); i++) {
+            Solucion.Ruta r = sol.rutas.get(i);
+            out.ascii(i > 0 ? ",\n    " : "\n    ");
+            out.ascii("{\"paquetes\": ").entero(r.paquetesEntregados);
+            out.ascii(", \"distancia\": ").centesimos(r.costoCentesimos);
+            out.ascii(", \"nodos\": [");
+            for (int j = 0; j < r.nodosVisitados.size(); j++) {
+                if (j > 0) out.ascii(", ");
+                out.entero(r.nodosVisitados.get(j));
+            }
+            out.ascii("]}");
+        }
+        out.ascii(sol.rutas.isEmpty() ? "]" : "\n  ]");
+
+        out.ascii(",\n  \"tiemposSegundos\": {");
+        boolean primero = true;
+        for (Map.Entry<String, Long> fase : tiemposNanos.entrySet()) {
+            out.ascii(primero ? "\n    " : ",\n    ");
+            out.cadenaJson(fase.getKey()).ascii(": ").segundos(fase.getValue());
+            primero = false;
+        }
+        out.ascii(primero ? "}" : "\n  }");
+        out.ascii("\n}\n");
+    }
+
+
+    // --- BINARIO ---
+
+    private static void escribirBinario(Canal out, Solucion sol, Map<String, Long> tiemposNanos) throws IOException {
+        out.ascii("VRPS").int32(VERSION_BINARIO);
+        out.int64(sol.costoDistanciaCentesimos).int64(sol.costoActivacionCentesimos);
+
+        out.int32(sol.hubsActivados.size());
+        for (Lector.Hub hub : sol.hubsActivados) out.int32(hub.idNodo());
+
+        out.int32(sol.rutas.size());
+        for (Solucion.Ruta r : sol.rutas) {
+            out.int32(r.paquetesEntregados).int64(r.costoCentesimos).int32(r.nodosVisitados.size());
+            for (int j = 0; j < r.nodosVisitados.size(); j++) out.int32(r.nodosVisitados.get(j));
+        }
 
-            // --- 2. RUTA ÓPTIMA ---
-            out.println("\n// RUTA OPTIMA");
-            StringBuilder rutaCompleta = new StringBuilder();
-            for (int i = 0; i < sol.rutas.size(); i++) {
-                Solucion.Ruta r = sol.rutas.get(i);
-                String rutaParcial = r.nodosVisitados.stream()
-                                    .map(String::valueOf)
-                                    .collect(Collectors.joining(" -> "));
-                
-                if (i == 0) {
-                    rutaCompleta.append(rutaParcial);
-                } else {
-                    rutaCompleta.append(" -> ")
-                                .append(rutaParcial.substring(rutaParcial.indexOf(" -> ") + 4));
+        out.int32(tiemposNanos.size());
+        for (Map.Entry<String, Long> fase : tiemposNanos.entrySet()) {
+            byte[] nombre = fase.getKey().getBytes(StandardCharsets.UTF_8);
+            out.int16(nombre.length).bytes(nombre).int64(fase.getValue());
+        }
+    }
+
+
+    // --- Canal con buffer ---
+
+    /**
+     * FileChannel con un ByteBuffer directo delante. Se vacía solo cuando no entra lo
+     * próximo a escribir, y al cerrar.
+     */
+    private static final class Canal implements AutoCloseable {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER); // Big-endian
+        private final byte[] digitos = new byte[20];
+
+        Canal(Path archivo) throws IOException {
+            this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        private void reservar(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) return;
+            vaciar();
+        }
+
+        private void vaciar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) canal.write(buffer);
+            buffer.clear();
+        }
+
+        // Solo para literales ASCII (claves, separadores)
+        Canal ascii(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                reservar(1);
+                buffer.put((byte) s.charAt(i));
+            }
+            return this;
+        }
+
+        Canal texto(String s) throws IOException {
+            return bytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Canal bytes(byte[] b) throws IOException {
+            int desde = 0;
+            while (desde < b.length) {
+                reservar(1);
+                int n = Math.min(buffer.remaining(), b.length - desde);
+                buffer.put(b, desde, n);
+                desde += n;
+            }
+            return this;
+        }
+
+        Canal entero(long v) throws IOException {
+            reservar(20);
+            if (v < 0) {
+                buffer.put((byte) '-');
+                if (v == Long.MIN_VALUE) return ascii("9223372036854775808");
+                v = -v;
+            }
+            int n = 0;
+            do {
+                digitos[n++] = (byte) ('0' + (v % 10));
+                v /= 10;
+            } while (v > 0);
+            while (n > 0) buffer.put(digitos[--n]);
+            return this;
+        }
+
+        // Centésimos como número decimal exacto con punto: 1093337 -> 10933.37
+        Canal centesimos(long c) throws IOException {
+            return fijo(c, Lector.ESCALA_CENTESIMOS);
+        }
+
+        // Nanosegundos como segundos con 6 decimales
+        Canal segundos(long nanos) throws IOException {
+            return fijo(nanos / 1_000, 1_000_000);
+        }
+
+        // Un dígito decimal por cada potencia de 10 en la escala
+        private Canal fijo(long valor, long escala) throws IOException {
+            if (valor < 0) {
+                ascii("-");
+                valor = -valor;
+            }
+            entero(valor / escala);
+            ascii(".");
+            long resto = valor % escala;
+            for (long d = escala / 10; d > 0; d /= 10) {
+                reservar(1);
+                buffer.put((byte) ('0' + (resto / d) % 10));
+            }
+            return this;
+        }
+
+        // Recorre por code point: un carácter fuera del BMP son dos char (par sustituto).
+        // Un sustituto suelto no se puede pasar a UTF-8: sale como escape con su código
+        Canal cadenaJson(String s) throws IOException {
+            ascii("\"");
+            for (int i = 0; i < s.length(); ) {
+                int c = s.codePointAt(i);
+                i += Character.charCount(c);
+                if (c == '"' || c == '\\') {
+                    ascii("\\");
+                } else if (c < 0x20 || (c <= 0xFFFF && Character.isSurrogate((char) c))) {
+                    ascii(String.format("\\u%04x", c));
+                    continue;
+                } else if (c >= 0x80) {
+                    texto(new String(Character.toChars(c)));
+                    continue;
                 }
+                reservar(1);
+                buffer.put((byte) c);
             }
-            out.println(rutaCompleta.toString());
+            return ascii("\"");
+        }
 
-            // --- 3. MÉTRICAS ---
-            out.println("\n// METRICAS");
-            out.printf("COSTO_TOTAL: %.2f\n", sol.getCostoTotal());
-            out.printf("DISTANCIA_RECORRIDA: %.2f\n", sol.costoTotalDistancia);
-            out.printf("COSTO_HUBS: %.2f\n", sol.costoTotalActivacion);
-            out.printf("TIEMPO_EJECUCION: %f segundos\n", tiempoEjecucion);
+        Canal int16(int v) throws IOException {
+            reservar(2);
+            buffer.putShort((short) v);
+            return this;
+        }
 
-        } catch (IOException e) {
-            System.err.println("Error al escribir el archivo de solución: " + e.getMessage());
+        Canal int32(int v) throws IOException {
+            reservar(4);
+            buffer.putInt(v);
+            return this;
+        }
+
+        Canal int64(long v) throws IOException {
+            reservar(8);
+            buffer.putLong(v);
+            return this;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                vaciar();
+            } finally {
+                canal.close();
+            }
         }
     }
-}
\ No newline at end of file
+}
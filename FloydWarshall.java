@@ -4,6 +4,10 @@ public class FloydWarshall {
      * @param problema 
      */
     public static void calcularCaminosMinimos(Lector.Problema problema) {
+        if (problema.grafoCentesimos != null) {
+            calcularCaminosMinimosCentesimos(problema);
+            return;
+        }
         
         int n = problema.numNodos;
         double[][] dist = problema.grafoDistancias; // 'dist' es un alias a la matriz del problema
@@ -31,4 +35,51 @@ public class FloydWarshall {
             }
         }
     }
+
+    /**
+     * Versión entera (modo centésimos): el cálculo es exacto y la matriz double
+     * se deriva al final, así ambas representaciones coinciden.
+     * @param problema 
+     */
+    private static void calcularCaminosMinimosCentesimos(Lector.Problema problema) {
+
+        int n = problema.numNodos;
+        long[][] dist = problema.grafoCentesimos;
+        final long INF = Lector.INFINITO_CENTESIMOS;
+
+        // --- 1. Inicialización ---
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j) {
+                    dist[i][j] = 0;
+                } else if (dist[i][j] == 0) {
+                    dist[i][j] = INF;
+                }
+            }
+        }
+
+        // --- 2. Algoritmo Principal ---
+        for (int k = 0; k < n; k++) {
+            long[] filaK = dist[k];
+            for (int i = 0; i < n; i++) {
+                long dist_i_k = dist[i][k];
+                if (dist_i_k == INF) continue;
+                long[] filaI = dist[i];
+                for (int j = 0; j < n; j++) {
+                    long dist_i_k_j = dist_i_k + filaK[j];
+                    if (dist_i_k_j < filaI[j]) {
+                        filaI[j] = dist_i_k_j;
+                    }
+                }
+            }
+        }
+
+        // --- 3. Matriz double equivalente ---
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                long d = dist[i][j];
+                problema.grafoDistancias[i][j] = (d >= INF) ? Double.POSITIVE_INFINITY : Solucion.aDecimal(d);
+            }
+        }
+    }
 }
\ No newline at end of file
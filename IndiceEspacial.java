@@ -0,0 +1,268 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Árbol k-d (2D) sobre las coordenadas de los nodos, guardado en arreglos planos.
+ * Permite consultas de k vecinos más cercanos y por radio sin tocar la matriz de distancias.
+ *
+ * Las aristas que escribe GeneradorVRP pesan la distancia euclídea entre sus extremos,
+ * así que la distancia euclídea (salvo el redondeo a dos decimales de cada arista) nunca
+ * supera al camino mínimo: sirve como pre-filtro antes de consultar la distancia exacta.
+ */
+public class IndiceEspacial {
+
+    private static final double TOLERANCIA_REDONDEO = 0.005;
+
+    // Nodo i del árbol implícito: el rango [lo, hi) tiene su raíz en (lo + hi) / 2
+    private final int[] ids;
+    private final int[] xs;
+    private final int[] ys;
+    private final int tam;
+
+    // Coordenadas de todos los nodos del problema, indexadas por id
+    private final int[] xPorId;
+    private final int[] yPorId;
+
+
+    //Construye el índice sobre los nodos indicados (ids de Problema.nodos).
+    public IndiceEspacial(Lector.Problema problema, int[] idsNodos) {
+        this.xPorId = new int[problema.numNodos];
+        this.yPorId = new int[problema.numNodos];
+        for (Lector.Nodo n : problema.nodos) {
+            xPorId[n.id()] = n.x();
+            yPorId[n.id()] = n.y();
+        }
+
+        this.tam = idsNodos.length;
+        this.ids = Arrays.copyOf(idsNodos, tam);
+        this.xs = new int[tam];
+        this.ys = new int[tam];
+        construir(0, tam, 0);
+        for (int i = 0; i < tam; i++) {
+            xs[i] = xPorId[ids[i]];
+            ys[i] = yPorId[ids[i]];
+        }
+    }
+
+    //Índice sobre todos los nodos del problema.
+    public static IndiceEspacial deTodosLosNodos(Lector.Problema problema) {
+        int[] todos = new int[problema.nodos.size()];
+        for (int i = 0; i < todos.length; i++) {
+            todos[i] = problema.nodos.get(i).id();
+        }
+        return new IndiceEspacial(problema, todos);
+    }
+
+    //Índice sobre los nodos que le interesan al Solver: depósito, hubs y destinos de paquetes.
+    public static IndiceEspacial deTerminales(Lector.Problema problema) {
+        Set<Integer> terminales = new HashSet<>();
+        terminales.add(problema.depositoId);
+        for (Lector.Hub hub : problema.hubs) terminales.add(hub.idNodo());
+        for (Lector.Paquete p : problema.paquetes) terminales.add(p.idNodoDestino());
+        return new IndiceEspacial(problema, terminales.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+
+    // --- CONSULTAS ---
+
+    //Los k nodos del índice más cercanos a (x, y), ordenados de menor a mayor distancia.
+    public int[] kMasCercanos(int x, int y, int k) {
+        return kMasCercanos(x, y, k, -1);
+    }
+
+    //Los k vecinos más cercanos de un nodo, sin incluirlo a él mismo.
+    public int[] vecinosCandidatos(int idNodo, int k) {
+        return kMasCercanos(xPorId[idNodo], yPorId[idNodo], k, idNodo);
+    }
+
+    //Todos los nodos del índice a distancia euclídea <= radio de (x, y).
+    public List<Integer> enRadio(int x, int y, double radio) {
+        List<Integer> resultado = new ArrayList<>();
+        long radio2 = (long) Math.floor(radio * radio);
+        buscarEnRadio(0, tam, 0, x, y, radio2, resultado);
+        return resultado;
+    }
+
+    /**
+     * Vecinos de un nodo a distancia de camino mínimo <= radio. La distancia euclídea
+     * descarta primero a los que no pueden estar en el radio; solo los que pasan el filtro
+     * se consultan en la matriz exacta.
+     */
+    public List<Integer> vecinosEnRadio(int idNodo, double radio, double[][] distancias) {
+        List<Integer> resultado = new ArrayList<>();
+        // Cada arista pesa al menos su largo euclídeo menos 0.005, y ese largo es >= 1
+        // (coordenadas enteras), así que pesa al menos (1 - 0.005) veces su largo. Un camino
+        // de peso 'radio' une entonces puntos a distancia euclídea <= radio / (1 - 0.005).
+        double radioFiltro = radio + radio * TOLERANCIA_REDONDEO / (1 - TOLERANCIA_REDONDEO);
+        for (int candidato : enRadio(xPorId[idNodo], yPorId[idNodo], radioFiltro)) {
+            if (candidato != idNodo && distancias[idNodo][candidato] <= radio) {
+                resultado.add(candidato);
+            }
+        }
+        return resultado;
+    }
+
+    //Distancia euclídea entre dos nodos del problema (cota inferior del camino mínimo).
+    public double distanciaEuclidea(int idA, int idB) {
+        long dx = xPorId[idA] - xPorId[idB];
+        long dy = yPorId[idA] - yPorId[idB];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public int getX(int idNodo) { return xPorId[idNodo]; }
+    public int getY(int idNodo) { return yPorId[idNodo]; }
+
+
+    // --- CONSTRUCCIÓN ---
+
+    // Ordena ids[lo, hi) de modo que la mediana según el eje quede en el medio (quickselect)
+    private void construir(int lo, int hi, int eje) {
+        if (hi - lo <= 1) return;
+        int medio = (lo + hi) >>> 1;
+        seleccionar(lo, hi - 1, medio, eje);
+        construir(lo, medio, eje ^ 1);
+        construir(medio + 1, hi, eje ^ 1);
+    }
+
+    private void seleccionar(int izq, int der, int k, int eje) {
+        while (izq < der) {
+            int pivote = coord(ids[(izq + der) >>> 1], eje);
+            int i = izq, j = der;
+            while (i <= j) {
+                while (coord(ids[i], eje) < pivote) i++;
+                while (coord(ids[j], eje) > pivote) j--;
+                if (i <= j) {
+                    int tmp = ids[i]; ids[i] = ids[j]; ids[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) der = j;
+            else if (k >= i) izq = i;
+            else return;
+        }
+    }
+
+    private int coord(int id, int eje) {
+        return (eje == 0) ? xPorId[id] : yPorId[id];
+    }
+
+
+    // --- BÚSQUEDAS RECURSIVAS ---
+
+    // El nodo excluido puede no estar en el índice: el resultado tiene lo que se haya encontrado
+    private int[] kMasCercanos(int x, int y, int k, int excluir) {
+        k = Math.min(k, tam);
+        if (k <= 0) return new int[0];
+
+        // Un heap por consulta: las consultas pueden correr en paralelo sobre el mismo índice
+        HeapMaximos heap = new HeapMaximos(k);
+        buscarKnn(0, tam, 0, x, y, heap, excluir);
+
+        // Vaciar el heap de máximos de atrás hacia adelante deja el resultado ordenado
+        int[] resultado = new int[heap.tam];
+        for (int i = heap.tam - 1; i >= 0; i--) {
+            resultado[i] = heap.id[0];
+            heap.sacarMaximo();
+        }
+        return resultado;
+    }
+
+    private void buscarKnn(int lo, int hi, int eje, int x, int y, HeapMaximos heap, int excluir) {
+        if (lo >= hi) return;
+        int medio = (lo + hi) >>> 1;
+
+        if (ids[medio] != excluir) {
+            long dx = xs[medio] - x;
+            long dy = ys[medio] - y;
+            long d2 = dx * dx + dy * dy;
+            if (!heap.lleno()) {
+                heap.agregar(d2, ids[medio]);
+            } else if (d2 < heap.dist[0]) {
+                heap.sacarMaximo();
+                heap.agregar(d2, ids[medio]);
+            }
+        }
+
+        long diferencia = (eje == 0) ? (x - xs[medio]) : (y - ys[medio]);
+        boolean izquierdaPrimero = diferencia < 0;
+        if (izquierdaPrimero) buscarKnn(lo, medio, eje ^ 1, x, y, heap, excluir);
+        else buscarKnn(medio + 1, hi, eje ^ 1, x, y, heap, excluir);
+
+        // Solo cruzamos el plano de corte si todavía puede haber algo más cerca
+        if (!heap.lleno() || diferencia * diferencia < heap.dist[0]) {
+            if (izquierdaPrimero) buscarKnn(medio + 1, hi, eje ^ 1, x, y, heap, excluir);
+            else buscarKnn(lo, medio, eje ^ 1, x, y, heap, excluir);
+        }
+    }
+
+    private void buscarEnRadio(int lo, int hi, int eje, int x, int y, long radio2, List<Integer> resultado) {
+        if (lo >= hi) return;
+        int medio = (lo + hi) >>> 1;
+
+        long dx = xs[medio] - x;
+        long dy = ys[medio] - y;
+        if (dx * dx + dy * dy <= radio2) {
+            resultado.add(ids[medio]);
+        }
+
+        long diferencia = (eje == 0) ? (x - xs[medio]) : (y - ys[medio]);
+        if (diferencia <= 0 || diferencia * diferencia <= radio2) buscarEnRadio(lo, medio, eje ^ 1, x, y, radio2, resultado);
+        if (diferencia >= 0 || diferencia * diferencia <= radio2) buscarEnRadio(medio + 1, hi, eje ^ 1, x, y, radio2, resultado);
+    }
+
+
+    // --- Heap de máximos (por distancia al cuadrado) ---
+
+    private static final class HeapMaximos {
+        final long[] dist;
+        final int[] id;
+        int tam = 0;
+
+        HeapMaximos(int capacidad) {
+            this.dist = new long[capacidad];
+            this.id = new int[capacidad];
+        }
+
+        boolean lleno() {
+            return tam == dist.length;
+        }
+
+        void agregar(long d2, int idNodo) {
+            int i = tam++;
+            while (i > 0) {
+                int padre = (i - 1) >>> 1;
+                if (dist[padre] >= d2) break;
+                dist[i] = dist[padre];
+                id[i] = id[padre];
+                i = padre;
+            }
+            dist[i] = d2;
+            id[i] = idNodo;
+        }
+
+        void sacarMaximo() {
+            tam--;
+            long d2 = dist[tam];
+            int idNodo = id[tam];
+            int i = 0;
+            while (true) {
+                int hijo = 2 * i + 1;
+                if (hijo >= tam) break;
+                if (hijo + 1 < tam && dist[hijo + 1] > dist[hijo]) hijo++;
+                if (dist[hijo] <= d2) break;
+                dist[i] = dist[hijo];
+                id[i] = id[hijo];
+                i = hijo;
+            }
+            if (tam > 0) {
+                dist[i] = d2;
+                id[i] = idNodo;
+            }
+        }
+    }
+}
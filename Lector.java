@@ -2,12 +2,18 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 
 
 public class Lector {
 
+    // Los pesos y costos de los archivos tienen exactamente dos decimales
+    public static final long ESCALA_CENTESIMOS = 100;
+    public static final long INFINITO_CENTESIMOS = Long.MAX_VALUE / 4; // Margen para sumar sin overflow
+
     // --- ESTRUCTURAS DE DATOS ---
     public record Nodo(int id, int x, int y) {}
     public record Hub(int idNodo, double costoActivacion) {}
@@ -24,6 +30,11 @@ public class Lector {
         public List<Hub> hubs = new ArrayList<>();
         public List<Paquete> paquetes = new ArrayList<>();
         public double[][] grafoDistancias;
+
+        // Solo en modo centésimos: mismos datos, escalados a enteros exactos.
+        // costosHubCentesimos va en el mismo orden que 'hubs'.
+        public long[][] grafoCentesimos;
+        public List<Long> costosHubCentesimos = new ArrayList<>();
     }
 
     // --- LÓGICA DE PARSEO ---
@@ -36,8 +47,40 @@ public class Lector {
     }
 
  
+    //Convierte un decimal del archivo ("806,09") a centésimos exactos (80609).
+    public static long aCentesimos(String decimal) {
+        return new BigDecimal(decimal.replace(',', '.'))
+                .movePointRight(2)
+                .setScale(0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+
+    //Costo de activación del hub j en centésimos (exacto si el problema se leyó en modo centésimos).
+    public static long costoHubCentesimos(Problema p, int j) {
+        if (p.costosHubCentesimos.size() == p.hubs.size()) {
+            return p.costosHubCentesimos.get(j);
+        }
+        return Math.round(p.hubs.get(j).costoActivacion() * ESCALA_CENTESIMOS);
+    }
+
+    //Distancia u -> v en centésimos (exacta si el problema se leyó en modo centésimos).
+    public static long distanciaCentesimos(Problema p, int u, int v) {
+        if (p.grafoCentesimos != null) return p.grafoCentesimos[u][v];
+        double d = p.grafoDistancias[u][v];
+        return Double.isInfinite(d) ? INFINITO_CENTESIMOS : Math.round(d * ESCALA_CENTESIMOS);
+    }
+
     //Lee un archivo de problema y retorna un objeto Problema.
     public static Problema leerArchivo(String nombreArchivo) {
+        return leerArchivo(nombreArchivo, false);
+    }
+
+    /**
+     * @param nombreArchivo Archivo dentro de la carpeta Output.
+     * @param modoCentesimos Si es true, además de los double se cargan pesos y costos
+     *                       de hubs como enteros en centésimos, sin error de redondeo.
+     */
+    public static Problema leerArchivo(String nombreArchivo, boolean modoCentesimos) {
         Problema p = new Problema();
 
         enum Seccion { CONFIG, NODOS, HUBS, PAQUETES, ARISTAS };
@@ -98,6 +141,7 @@ public class Lector {
                             else if (partes[0].equals("DEPOSITO_ID")) {
                                 p.depositoId = Integer.parseInt(partes[1]);
                                 p.grafoDistancias = new double[p.numNodos][p.numNodos];
+                                if (modoCentesimos) p.grafoCentesimos = new long[p.numNodos][p.numNodos];
                             }
                             break;
                         
@@ -119,6 +163,7 @@ public class Lector {
                                     Integer.parseInt(partes[0]),
                                     Double.parseDouble(costoConPunto)
                                 ));
+                                if (modoCentesimos) p.costosHubCentesimos.add(aCentesimos(partes[1]));
                             }
                             break;
 
@@ -141,6 +186,11 @@ public class Lector {
                                 if (u < p.numNodos && v < p.numNodos) {
                                     p.grafoDistancias[u][v] = peso;
                                     p.grafoDistancias[v][u] = peso;
+                                    if (modoCentesimos) {
+                                        long pesoCentesimos = aCentesimos(partes[2]);
+                                        p.grafoCentesimos[u][v] = pesoCentesimos;
+                                        p.grafoCentesimos[v][u] = pesoCentesimos;
+                                    }
                                 }
                             }
                             break;
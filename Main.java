@@ -1,9 +1,61 @@
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
 //Generador -> Lector -> FloydWarshall -> Solver -> Escritor
 public class Main {
 
+    private static final String ARCHIVO_CHECKPOINT = "Output/checkpoint.txt";
+    private static final double INTERVALO_CHECKPOINT_SEG = 30.0;
+    private static final String USO = "Uso: java Main [--reanudar] [--clusters N] [--coordinador N] [--puerto P]"
+            + " [--pool | --haz W | --discrepancia D] [--formato texto|json|binario]";
+
     public static void main(String[] args) {
+        // --reanudar: continúa la búsqueda desde el último checkpoint
+        // --clusters N: descomposición en clusters de a lo sumo N paquetes
+        // --coordinador N: reparte las combinaciones de hubs entre N procesos Trabajador locales
+        // --puerto P: puerto del coordinador (para conectar trabajadores a mano)
+        // --pool: ruteo exacto por partición en viajes precalculados (mismo óptimo que el backtracking)
+        // --haz W: ruteo por búsqueda en haz de ancho W (rápido, no garantiza el óptimo)
+        // --discrepancia D: ruteo por búsqueda de discrepancia limitada con a lo sumo D desvíos
+        // --formato F: texto (por defecto), json o binario para el archivo de solución
+        boolean reanudar = false;
+        int tamMaxCluster = 0;
+        int numTrabajadores = -1;
+        int puerto = 0;
+        Solver.Modo modo = Solver.Modo.EXACTO;
+        int parametroModo = 0;
+        EscritorSolucion.Formato formato = EscritorSolucion.Formato.TEXTO;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--reanudar")) reanudar = true;
+                else if (args[i].equals("--clusters")) tamMaxCluster = entero(args, ++i, "--clusters", 1, Integer.MAX_VALUE);
+                else if (args[i].equals("--coordinador")) numTrabajadores = entero(args, ++i, "--coordinador", 0, Integer.MAX_VALUE);
+                else if (args[i].equals("--puerto")) puerto = entero(args, ++i, "--puerto", 0, 65535);
+                else if (args[i].equals("--pool")) modo = Solver.Modo.POOL;
+                else if (args[i].equals("--haz")) {
+                    modo = Solver.Modo.HAZ;
+                    parametroModo = entero(args, ++i, "--haz", 1, Integer.MAX_VALUE);
+                } else if (args[i].equals("--discrepancia")) {
+                    modo = Solver.Modo.DISCREPANCIA;
+                    parametroModo = entero(args, ++i, "--discrepancia", 0, Integer.MAX_VALUE);
+                } else if (args[i].equals("--formato")) {
+                    formato = formato(args, ++i);
+                } else {
+                    throw new IllegalArgumentException("opción desconocida: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Argumento inválido: " + e.getMessage());
+            System.err.println(USO);
+            System.exit(1);
+        }
+
+        // Duración de cada fase en nanosegundos, en orden (se escribe junto con la solución)
+        Map<String, Long> tiemposFases = new LinkedHashMap<>();
 
         // --- 1. GENERAR CASO DE PRUEBA ---
+        long inicioFase = System.nanoTime();
         System.out.println("--- Generando un caso de prueba ---");
         
 
@@ -13,34 +65,55 @@ public class Main {
         
         GeneradorVRP.generarArchivoCaso(argsGenerador);
         System.out.println("--- 'caso.txt' generado ---");
+        tiemposFases.put("generacion", System.nanoTime() - inicioFase);
 
         System.out.println("--- Iniciando TPO de Programación III ---");
         String nombreArchivo = "caso.txt"; 
 
         try {
             // --- 2. Lectura y Pre-procesamiento ---
-            Lector.Problema problema = Lector.leerArchivo(nombreArchivo);
+            // Modo centésimos: pesos y costos como enteros exactos
+            inicioFase = System.nanoTime();
+            Lector.Problema problema = Lector.leerArchivo(nombreArchivo, true);
             if (problema == null) return;
+            tiemposFases.put("lectura", System.nanoTime() - inicioFase);
+
+            inicioFase = System.nanoTime();
             FloydWarshall.calcularCaminosMinimos(problema);
+            tiemposFases.put("caminos_minimos", System.nanoTime() - inicioFase);
             Lector.imprimirProblema(problema);
 
             // --- 3. Resolver el Problema (Medir Tiempo) ---
             System.out.println("\nIniciando Solver (Backtracking)...");
             long inicioSolver = System.nanoTime(); // Iniciar timer
 
-            Solver solver = new Solver(problema);
-            Solucion solucionOptima = solver.encontrarMejorSolucion();
+            Solucion solucionOptima;
+            if (tamMaxCluster > 0) {
+                solucionOptima = new Descomposicion(problema, tamMaxCluster).resolver();
+            } else if (numTrabajadores >= 0) {
+                solucionOptima = new Coordinador(problema, nombreArchivo, puerto, numTrabajadores).resolver();
+            } else {
+                Solver solver = new Solver(problema);
+                solver.setModo(modo, parametroModo);
+                // El checkpoint marca combinaciones como resueltas: solo vale para los modos exactos
+                if (modo == Solver.Modo.EXACTO || modo == Solver.Modo.POOL) {
+                    solver.configurarCheckpoint(ARCHIVO_CHECKPOINT, INTERVALO_CHECKPOINT_SEG, reanudar);
+                }
+                solucionOptima = solver.encontrarMejorSolucion();
+            }
 
             long finSolver = System.nanoTime(); // Detener timer
             double tiempoEjecucion = (finSolver - inicioSolver) / 1_000_000_000.0; // Convertir a segundos
+            tiemposFases.put(EscritorSolucion.FASE_SOLVER, finSolver - inicioSolver);
 
             // --- 4. Imprimir y Escribir la Solución Final ---
             if (solucionOptima != null) {
                 solucionOptima.imprimir();
                 System.out.printf("\nSolver finalizado en %.6f segundos.\n", tiempoEjecucion);
                 
-                EscritorSolucion.escribir(solucionOptima, tiempoEjecucion);
-                System.out.println("Archivo 'solucion.txt' generado.");
+                String archivoSolucion = EscritorSolucion.archivoPorDefecto(formato);
+                EscritorSolucion.escribir(solucionOptima, tiemposFases, formato, archivoSolucion);
+                System.out.println("Archivo '" + archivoSolucion + "' generado.");
                 
             } else {
                 System.out.println("\nNo se encontró ninguna solución.");
@@ -52,4 +125,31 @@ public class Main {
         }
         System.out.println("\n--- Ejecución Finalizada ---");
     }
+
+
+    // --- Argumentos ---
+
+    // Valor entero de la opción en args[i], dentro de [minimo, maximo]
+    private static int entero(String[] args, int i, String opcion, int minimo, int maximo) {
+        if (i >= args.length) throw new IllegalArgumentException("falta el valor de " + opcion);
+        int valor;
+        try {
+            valor = Integer.parseInt(args[i]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(opcion + " espera un número entero: " + args[i]);
+        }
+        if (valor < minimo || valor > maximo) {
+            throw new IllegalArgumentException(opcion + " fuera de rango: " + valor);
+        }
+        return valor;
+    }
+
+    private static EscritorSolucion.Formato formato(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException("falta el valor de --formato");
+        try {
+            return EscritorSolucion.Formato.valueOf(args[i].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("formato desconocido: " + args[i] + " (texto, json o binario)");
+        }
+    }
 }
\ No newline at end of file
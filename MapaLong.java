@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+
+/**
+ * Mapa de claves long no negativas a valores int, con direccionamiento abierto
+ * (sondeo lineal) sobre arreglos primitivos. Evita crear un Long y un nodo de
+ * HashMap por cada entrada en las tablas grandes de PoolViajes.
+ */
+public class MapaLong {
+
+    private static final long VACIO = -1L;
+
+    private long[] claves;
+    private int[] valores;
+    private int tamanio = 0;
+
+    public MapaLong(int capacidadInicial) {
+        int capacidad = Integer.highestOneBit(Math.max(4, capacidadInicial) - 1) << 1;
+        this.claves = new long[capacidad];
+        this.valores = new int[capacidad];
+        Arrays.fill(this.claves, VACIO);
+    }
+
+    //Valor asociado a la clave, o -1 si no está.
+    public int get(long clave) {
+        int mascara = claves.length - 1;
+        for (int i = posicion(clave, mascara); ; i = (i + 1) & mascara) {
+            if (claves[i] == clave) return valores[i];
+            if (claves[i] == VACIO) return -1;
+        }
+    }
+
+    public void put(long clave, int valor) {
+        if (clave < 0) throw new IllegalArgumentException("MapaLong solo admite claves no negativas: " + clave);
+        int mascara = claves.length - 1;
+        for (int i = posicion(clave, mascara); ; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                valores[i] = valor;
+                return;
+            }
+            if (claves[i] == VACIO) {
+                claves[i] = clave;
+                valores[i] = valor;
+                if (++tamanio * 2 > claves.length) agrandar();
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return tamanio;
+    }
+
+    public void limpiar() {
+        Arrays.fill(claves, VACIO);
+        tamanio = 0;
+    }
+
+    private void agrandar() {
+        long[] viejasClaves = claves;
+        int[] viejosValores = valores;
+        claves = new long[viejasClaves.length * 2];
+        valores = new int[viejosValores.length * 2];
+        Arrays.fill(claves, VACIO);
+        tamanio = 0;
+        for (int i = 0; i < viejasClaves.length; i++) {
+            if (viejasClaves[i] != VACIO) put(viejasClaves[i], viejosValores[i]);
+        }
+    }
+
+    private static int posicion(long clave, int mascara) {
+        long h = clave * 0x9E3779B97F4A7C15L; // Mezcla de Fibonacci: las claves vienen muy correlacionadas
+        return (int) (h >>> 32) & mascara;
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.function.LongSupplier;
+
+
+/**
+ * Base de los motores que rutean UNA combinación de hubs sobre los índices densos de
+ * Terminales, en lugar de backtrackRecursivo (ver BusquedaHaz y PoolViajes). El Solver
+ * les pasa los puntos de recarga de la combinación y lee el resultado en el mismo formato
+ * de camino que arma el backtracking: un paso por entrega o recarga, y el retorno final
+ * como último paso.
+ */
+public abstract class MotorRuteo {
+
+    protected final Terminales terminales;
+    protected final long[] distancias;
+    protected final int k;
+    protected final int capacidadCamion;
+
+    // --- Combinación actual (los arreglos son los del Solver, no se copian) ---
+    protected int[] recargas;
+    protected int numRecargas;
+    protected int[] recargaCercana;
+    protected long[] distCercana;
+    private LongSupplier cota; // Nada que cueste esto o más le sirve al Solver (puede bajar mientras tanto)
+
+    // --- Resultado ---
+    public long mejorDistancia;
+    public int[] mejorCamino;          // null si no hay ruteo bajo la cota
+    public boolean[] mejorCaminoRecarga;
+    public long estadosExpandidos = 0; // Acumulado entre combinaciones
+
+
+    protected MotorRuteo(Terminales terminales, int capacidadCamion) {
+        this.terminales = terminales;
+        this.distancias = terminales.distancias;
+        this.k = terminales.k;
+        this.capacidadCamion = capacidadCamion;
+    }
+
+    /**
+     * Fija los puntos de recarga de la combinación a resolver y la cota de distancia.
+     * La cota se vuelve a leer en cada poda, así que puede bajar durante la búsqueda.
+     */
+    public void prepararCombinacion(int[] recargas, int numRecargas, int[] recargaCercana, long[] distCercana, LongSupplier cota) {
+        this.recargas = recargas;
+        this.numRecargas = numRecargas;
+        this.recargaCercana = recargaCercana;
+        this.distCercana = distCercana;
+        this.cota = cota;
+        this.mejorDistancia = Lector.INFINITO_CENTESIMOS;
+        this.mejorCamino = null;
+        this.mejorCaminoRecarga = null;
+    }
+
+    //Rutea la combinación preparada y deja el mejor camino encontrado en los campos de resultado.
+    public abstract void resolver();
+
+    /**
+     * Si es true, un resultado bajo la cota es el óptimo de la combinación (el Solver lo
+     * guarda en la caché y lo usa como cota inferior); si no, es solo una buena solución.
+     */
+    public abstract boolean esExacto();
+
+    //Lo que tiene que costar menos un camino para que valga la pena seguirlo.
+    protected long limite() {
+        return Math.min(this.mejorDistancia, this.cota.getAsLong());
+    }
+
+    /**
+     * Cota barata de lo que falta desde 'nodo': para cada cliente pendiente c hay que llegar
+     * a c y después terminar en algún punto de recarga, así que el resto cuesta al menos
+     * max_c (d(nodo, c) + recargaMasCercana(c)). Sin pendientes, solo queda el retorno.
+     * @param pendientes Paquetes pendientes por índice denso.
+     */
+    protected long cotaResto(int nodo, int[] pendientes) {
+        long maximo = -1;
+        int fila = nodo * k;
+        for (int cliente : terminales.clientes) {
+            if (pendientes[cliente] == 0) continue;
+            long d = distancias[fila + cliente] + distCercana[cliente];
+            if (d > maximo) maximo = d;
+        }
+        return (maximo < 0) ? distCercana[nodo] : maximo;
+    }
+}
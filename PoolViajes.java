@@ -0,0 +1,489 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Motor exacto por pool de viajes (set partitioning). En el modelo del Solver el camino
+ * es una sucesión de viajes: cada uno sale de un punto de recarga, entrega a lo sumo
+ * 'capacidadCamion' paquetes y termina en otro punto de recarga (el último, en el más
+ * cercano a su último cliente). backtrackRecursivo vuelve a descubrir el mejor orden de
+ * los mismos grupitos de clientes en cada rama y en cada combinación de hubs; acá:
+ *
+ *  1. Pool de viajes: para cada (recarga de salida, subconjunto de clientes) se calcula
+ *     UNA vez el costo mínimo de recorrerlos terminando en cada cliente (Held-Karp) y se
+ *     guarda en un MapaLong. El pool no depende de qué hubs están activos, así que se
+ *     comparte entre todas las combinaciones.
+ *     Cada viaje guarda un costo por cliente de 's' (no uno por cliente del problema).
+ *  2. Partición: se elige la sucesión de viajes de costo mínimo que cubre todos los
+ *     paquetes, con una búsqueda A* sobre estados (paquetes cubiertos como máscara de
+ *     bits, recarga actual) y dominancia de máscaras: un estado que cubre un superconjunto
+ *     de paquetes, en la misma recarga y con costo menor o igual, descarta al otro. Los
+ *     estados expandidos se guardan en un árbol de bits por recarga para encontrarlo rápido.
+ *
+ * Los subconjuntos de un viaje se arman agregando clientes de a uno, y se deja de agregar
+ * apenas el viaje cerrado ya no puede mejorar la cota: con caminos mínimos vale la
+ * desigualdad triangular, así que un superconjunto de clientes no se recorre en menos.
+ *
+ * Los paquetes de un mismo cliente ocupan bits consecutivos y siempre se cubren los de
+ * más abajo primero, así cada máscara representa una sola cantidad entregada por cliente.
+ */
+public class PoolViajes extends MotorRuteo {
+
+    // Con 20 paquetes una instancia de 4 hubs ya tarda del orden de un minuto y medio (los
+    // estados crecen ~3x por paquete): más que esto conviene resolverlo por clusters
+    public static final int MAX_PAQUETES = 20;
+
+    private final int deposito;
+
+    // --- Clientes (un bit por cliente distinto) y sus paquetes ---
+    private final int m;
+    private final int[] cliente;           // bit i -> índice denso
+    private final int[] demanda;           // bit i -> paquetes con ese destino
+    private final int[] primerBit;         // bit i -> primer bit de sus paquetes
+    private final long[] mascaraPaquetes;  // bit i -> bits de sus paquetes
+    private final long todosLosPaquetes;
+
+    // --- Pool de viajes (compartido entre combinaciones de hubs) ---
+    private final MapaLong indiceViaje = new MapaLong(1024); // subconjunto * k + salida -> posición en costosViaje
+    private final List<long[]> costosViaje = new ArrayList<>(); // Por cliente final, en el orden de sus bits en s
+
+    // --- Estados de la partición (se reinician en cada combinación) ---
+    private final MapaLong indiceEstado = new MapaLong(1024); // máscara * k + recarga -> id
+    private long[] mascaraEstado = new long[1024];
+    private int[] recargaEstado = new int[1024];
+    private long[] costoEstado = new long[1024];
+    private int[] padreEstado = new int[1024];
+    private int numEstados;
+    private int padreFinal;                   // Estado desde el que sale el último viaje
+    private final int[] pendientesPorTerminal; // Auxiliar para cotaResto
+    private final long[] entradaMinima;        // bit i -> tramo más corto que llega a su cliente
+    private long entradasPendientes;           // Del estado que se expande: suma de entradaMinima
+    private long retornoPendientes;            // y menor distCercana de sus clientes pendientes
+
+    // --- Estados expandidos, para la dominancia: un árbol de bits por recarga ---
+    // Cada nodo guarda el menor costo de los estados debajo; se baja de la raíz por el bit
+    // más alto, y donde la máscara buscada tiene un 0 se puede seguir por los dos hijos.
+    private final int numBits;
+    private int[] raizCerrados;
+    private int[] hijoCero = new int[1024];
+    private int[] hijoUno = new int[1024];
+    private long[] costoMinimoNodo = new long[1024];
+    private int numNodosCerrados;
+
+    // --- Resultado (además de los de MotorRuteo) ---
+    public long estadosDominados = 0;
+
+
+    public PoolViajes(Terminales terminales, int capacidadCamion) {
+        super(terminales, capacidadCamion);
+        this.deposito = terminales.indiceDeposito;
+        this.pendientesPorTerminal = new int[k];
+        this.raizCerrados = new int[k];
+
+        this.cliente = terminales.clientes;
+        this.m = cliente.length;
+        this.demanda = new int[m];
+        this.primerBit = new int[m];
+        this.mascaraPaquetes = new long[m];
+        this.entradaMinima = new long[m];
+        int bit = 0;
+        for (int i = 0; i < m; i++) {
+            demanda[i] = terminales.demanda[cliente[i]];
+            primerBit[i] = bit;
+            bit += demanda[i];
+            if (bit > MAX_PAQUETES) {
+                throw new IllegalArgumentException("PoolViajes admite a lo sumo " + MAX_PAQUETES + " paquetes");
+            }
+            mascaraPaquetes[i] = ((1L << demanda[i]) - 1) << primerBit[i];
+        }
+        this.todosLosPaquetes = (1L << bit) - 1;
+        this.numBits = bit;
+    }
+
+    @Override
+    public void prepararCombinacion(int[] recargas, int numRecargas, int[] recargaCercana, long[] distCercana, LongSupplier cota) {
+        super.prepararCombinacion(recargas, numRecargas, recargaCercana, distCercana, cota);
+        // Desde otro cliente o desde un punto de recarga de esta combinación. Un cliente que
+        // es a la vez punto de recarga puede no necesitar tramo propio (el camión ya está ahí)
+        for (int i = 0; i < m; i++) {
+            long minimo = Lector.INFINITO_CENTESIMOS;
+            for (int j = 0; j < m; j++) {
+                if (j != i) minimo = Math.min(minimo, distancias[cliente[j] * k + cliente[i]]);
+            }
+            for (int r = 0; r < numRecargas; r++) {
+                minimo = Math.min(minimo, distancias[recargas[r] * k + cliente[i]]);
+            }
+            entradaMinima[i] = minimo;
+        }
+    }
+
+    @Override
+    public boolean esExacto() {
+        return true;
+    }
+
+    //Cantidad de viajes distintos calculados hasta ahora (en todas las combinaciones).
+    public int tamanioPool() {
+        return costosViaje.size();
+    }
+
+
+    // --- Partición (A* sobre paquetes cubiertos) ---
+
+    /**
+     * Busca la sucesión de viajes más corta con distancia menor que la cota.
+     * Si no hay ninguna, mejorCamino queda en null.
+     */
+    @Override
+    public void resolver() {
+        indiceEstado.limpiar();
+        numEstados = 0;
+        padreFinal = -1;
+        Arrays.fill(raizCerrados, -1);
+        numNodosCerrados = 0;
+
+        // {prioridad = costo + cota del resto, costo al encolar, id}
+        PriorityQueue<long[]> abiertos = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        int inicial = nuevoEstado(0, deposito, 0, -1);
+        abiertos.add(new long[] { cotaResto(deposito, terminales.demanda), 0, inicial });
+
+        while (!abiertos.isEmpty()) {
+            long[] tope = abiertos.poll();
+            if (tope[0] >= limite()) break; // Nada abierto puede mejorar
+            int id = (int) tope[2];
+            if (tope[1] > costoEstado[id]) continue; // Entrada vieja: el estado ya bajó de costo
+            if (estaDominado(id)) {
+                this.estadosDominados++;
+                continue;
+            }
+            agregarCerrado(recargaEstado[id], mascaraEstado[id], costoEstado[id]);
+            expandir(id, abiertos);
+        }
+
+        if (padreFinal >= 0) reconstruirCamino();
+    }
+
+    private void expandir(int id, PriorityQueue<long[]> abiertos) {
+        this.estadosExpandidos++;
+        long cubiertos = mascaraEstado[id];
+        long costo = costoEstado[id];
+
+        int[] restantes = new int[m];
+        long disponibles = 0;
+        entradasPendientes = 0;
+        retornoPendientes = Lector.INFINITO_CENTESIMOS;
+        for (int i = 0; i < m; i++) {
+            restantes[i] = demanda[i] - Long.bitCount(cubiertos & mascaraPaquetes[i]);
+            if (restantes[i] > 0) {
+                disponibles |= 1L << i;
+                entradasPendientes = Math.min(entradasPendientes + entradaMinima[i], Lector.INFINITO_CENTESIMOS);
+                retornoPendientes = Math.min(retornoPendientes, distCercana[cliente[i]]);
+            }
+        }
+
+        agregarViajes(id, costo, cubiertos, restantes, disponibles, 0, 0, abiertos);
+    }
+
+    /**
+     * Recorre los subconjuntos no vacíos de clientes pendientes que entran en el camión,
+     * agregando a 's' clientes con bit >= 'desde'. Si el viaje cerrado por un subconjunto
+     * ya llega a la cota, se saltean también todos sus superconjuntos.
+     */
+    private void agregarViajes(int id, long costo, long cubiertos, int[] restantes, long disponibles,
+                               long previo, int desde, PriorityQueue<long[]> abiertos) {
+        int salida = recargaEstado[id];
+        for (long candidatos = disponibles & (-1L << desde); candidatos != 0; candidatos &= candidatos - 1) {
+            int j = Long.numberOfTrailingZeros(candidatos);
+            long s = previo | (1L << j);
+            long[] costoHasta = viaje(salida, s);
+            if (costo + cierreMinimo(s, costoHasta, -1) >= limite()) continue;
+
+            int total = 0;
+            for (long b = s; b != 0; b &= b - 1) total += restantes[Long.numberOfTrailingZeros(b)];
+            if (total <= capacidadCamion) {
+                // Cabe todo lo pendiente de esos clientes: entregar menos nunca conviene
+                long nueva = cubiertos;
+                for (long b = s; b != 0; b &= b - 1) nueva |= mascaraPaquetes[Long.numberOfTrailingZeros(b)];
+                agregarSucesores(id, costo, s, costoHasta, nueva, abiertos);
+            } else {
+                // No cabe: el camión sale lleno, con al menos un paquete por cliente visitado
+                repartirCarga(id, costo, s, costoHasta, restantes, s, capacidadCamion, cubiertos, abiertos);
+            }
+            if (Long.bitCount(s) < capacidadCamion) {
+                agregarViajes(id, costo, cubiertos, restantes, disponibles, s, j + 1, abiertos);
+            }
+        }
+    }
+
+    // Enumera las cargas (q_i entre 1 y restantes_i, suma = capacidad) para los clientes de 'pendientesDeS'
+    private void repartirCarga(int id, long costo, long s, long[] costoHasta, int[] restantes,
+                               long pendientesDeS, int capacidadLibre, long nueva, PriorityQueue<long[]> abiertos) {
+        int i = Long.numberOfTrailingZeros(pendientesDeS);
+        long resto = pendientesDeS & (pendientesDeS - 1);
+        int minimoResto = Long.bitCount(resto);
+        int maximoResto = 0;
+        for (long b = resto; b != 0; b &= b - 1) maximoResto += restantes[Long.numberOfTrailingZeros(b)];
+
+        int entregados = demanda[i] - restantes[i];
+        int desde = Math.max(1, capacidadLibre - maximoResto);
+        int hasta = Math.min(restantes[i], capacidadLibre - minimoResto);
+        for (int q = desde; q <= hasta; q++) {
+            long bits = ((1L << q) - 1) << (primerBit[i] + entregados);
+            if (resto == 0) {
+                agregarSucesores(id, costo, s, costoHasta, nueva | bits, abiertos);
+            } else {
+                repartirCarga(id, costo, s, costoHasta, restantes, resto, capacidadLibre - q, nueva | bits, abiertos);
+            }
+        }
+    }
+
+    private void agregarSucesores(int id, long costo, long s, long[] costoHasta, long nueva, PriorityQueue<long[]> abiertos) {
+        if (nueva == todosLosPaquetes) {
+            // Último viaje: vuelve al punto de recarga más cercano a su último cliente
+            long total = costo + cierreMinimo(s, costoHasta, -1);
+            if (total < this.mejorDistancia) {
+                this.mejorDistancia = total;
+                this.padreFinal = id;
+            }
+            return;
+        }
+        // Llegar a cualquier recarga cuesta al menos cerrar el viaje en la más cercana
+        long entradas = cotaEntradas(s, nueva);
+        if (costo + cierreMinimo(s, costoHasta, -1) + entradas >= limite()) return;
+
+        for (int i = 0; i < m; i++) {
+            pendientesPorTerminal[cliente[i]] = demanda[i] - Long.bitCount(nueva & mascaraPaquetes[i]);
+        }
+        for (int r = 0; r < numRecargas; r++) {
+            int llegada = recargas[r];
+            long nuevoCosto = costo + cierreMinimo(s, costoHasta, llegada);
+            if (nuevoCosto >= Lector.INFINITO_CENTESIMOS) continue;
+            long prioridad = nuevoCosto + Math.max(cotaResto(llegada, pendientesPorTerminal), entradas);
+            if (prioridad >= limite()) continue;
+
+            int existente = indiceEstado.get(nueva * k + llegada);
+            if (existente >= 0) {
+                if (costoEstado[existente] <= nuevoCosto) continue;
+                costoEstado[existente] = nuevoCosto;
+                padreEstado[existente] = id;
+                abiertos.add(new long[] { prioridad, nuevoCosto, existente });
+            } else {
+                int nuevo = nuevoEstado(nueva, llegada, nuevoCosto, id);
+                abiertos.add(new long[] { prioridad, nuevoCosto, nuevo });
+            }
+        }
+    }
+
+    /**
+     * Costo mínimo del viaje por los clientes de 's' más el tramo final: hasta 'llegada',
+     * o (si llegada es -1) hasta la recarga más cercana al último cliente. Como en el
+     * backtracking, no se recarga en el mismo nodo donde se acaba de entregar.
+     */
+    private long cierreMinimo(long s, long[] costoHasta, int llegada) {
+        long mejor = Lector.INFINITO_CENTESIMOS;
+        int pos = 0;
+        for (long b = s; b != 0; b &= b - 1, pos++) {
+            int nodo = cliente[Long.numberOfTrailingZeros(b)];
+            if (nodo == llegada) continue;
+            long tramo = (llegada < 0) ? distCercana[nodo] : distancias[nodo * k + llegada];
+            mejor = Math.min(mejor, costoHasta[pos] + tramo);
+        }
+        return Math.min(mejor, Lector.INFINITO_CENTESIMOS);
+    }
+
+    // Algún estado ya expandido en la misma recarga cubre al menos estos paquetes y costó lo mismo o menos
+    private boolean estaDominado(int id) {
+        return hayDominante(raizCerrados[recargaEstado[id]], numBits - 1, mascaraEstado[id], costoEstado[id]);
+    }
+
+    private boolean hayDominante(int nodo, int bit, long mascara, long costo) {
+        if (nodo < 0 || costoMinimoNodo[nodo] > costo) return false;
+        if (bit < 0) return true;
+        if (hayDominante(hijoUno[nodo], bit - 1, mascara, costo)) return true;
+        return ((mascara >>> bit) & 1) == 0 && hayDominante(hijoCero[nodo], bit - 1, mascara, costo);
+    }
+
+    private void agregarCerrado(int recarga, long mascara, long costo) {
+        if (raizCerrados[recarga] < 0) raizCerrados[recarga] = nuevoNodoCerrado();
+        int nodo = raizCerrados[recarga];
+        for (int bit = numBits - 1; ; bit--) {
+            costoMinimoNodo[nodo] = Math.min(costoMinimoNodo[nodo], costo);
+            if (bit < 0) return;
+            boolean uno = ((mascara >>> bit) & 1) != 0;
+            int hijo = uno ? hijoUno[nodo] : hijoCero[nodo];
+            if (hijo < 0) {
+                hijo = nuevoNodoCerrado();
+                if (uno) hijoUno[nodo] = hijo;
+                else hijoCero[nodo] = hijo;
+            }
+            nodo = hijo;
+        }
+    }
+
+    private int nuevoNodoCerrado() {
+        if (numNodosCerrados == hijoCero.length) {
+            int n = numNodosCerrados * 2;
+            hijoCero = Arrays.copyOf(hijoCero, n);
+            hijoUno = Arrays.copyOf(hijoUno, n);
+            costoMinimoNodo = Arrays.copyOf(costoMinimoNodo, n);
+        }
+        int nodo = numNodosCerrados++;
+        hijoCero[nodo] = -1;
+        hijoUno[nodo] = -1;
+        costoMinimoNodo[nodo] = Lector.INFINITO_CENTESIMOS;
+        return nodo;
+    }
+
+    /**
+     * Otra cota del resto, que suma en vez de tomar el máximo: a cada cliente pendiente se
+     * llega por primera vez por un tramo distinto, y cada uno de los viajes que faltan (al
+     * menos pendientes / capacidad) termina con un tramo de un cliente a una recarga.
+     * Se descuenta de la suma del estado expandido lo que completa el viaje 's'.
+     */
+    private long cotaEntradas(long s, long nueva) {
+        if (entradasPendientes >= Lector.INFINITO_CENTESIMOS) return Lector.INFINITO_CENTESIMOS;
+        long suma = entradasPendientes;
+        for (long b = s; b != 0; b &= b - 1) {
+            int i = Long.numberOfTrailingZeros(b);
+            if ((nueva & mascaraPaquetes[i]) == mascaraPaquetes[i]) suma -= entradaMinima[i];
+        }
+        int pendientes = Long.bitCount(todosLosPaquetes & ~nueva);
+        int viajes = (pendientes + capacidadCamion - 1) / capacidadCamion;
+        return Math.min(suma + viajes * Math.min(retornoPendientes, Lector.INFINITO_CENTESIMOS / MAX_PAQUETES),
+                Lector.INFINITO_CENTESIMOS);
+    }
+
+    private int nuevoEstado(long mascara, int recarga, long costo, int padre) {
+        if (numEstados == mascaraEstado.length) {
+            int n = numEstados * 2;
+            mascaraEstado = Arrays.copyOf(mascaraEstado, n);
+            recargaEstado = Arrays.copyOf(recargaEstado, n);
+            costoEstado = Arrays.copyOf(costoEstado, n);
+            padreEstado = Arrays.copyOf(padreEstado, n);
+        }
+        int id = numEstados++;
+        mascaraEstado[id] = mascara;
+        recargaEstado[id] = recarga;
+        costoEstado[id] = costo;
+        padreEstado[id] = padre;
+        indiceEstado.put(mascara * k + recarga, id);
+        return id;
+    }
+
+
+    // --- Pool de viajes (Held-Karp perezoso) ---
+
+    /**
+     * Costo mínimo de salir de 'salida' y visitar los clientes de 's', terminando en cada
+     * uno de ellos (posición p = el p-ésimo bit encendido de 's'). Se calcula una sola vez
+     * por (salida, s) y queda en el pool.
+     */
+    private long[] viaje(int salida, long s) {
+        long clave = s * k + salida;
+        int indice = indiceViaje.get(clave);
+        if (indice >= 0) return costosViaje.get(indice);
+
+        long[] costoHasta = new long[Long.bitCount(s)];
+        Arrays.fill(costoHasta, Lector.INFINITO_CENTESIMOS);
+        if (costoHasta.length == 1) {
+            costoHasta[0] = distancias[salida * k + cliente[Long.numberOfTrailingZeros(s)]];
+        } else {
+            int pos = 0;
+            for (long b = s; b != 0; b &= b - 1, pos++) {
+                int j = Long.numberOfTrailingZeros(b);
+                long previoS = s & ~(1L << j);
+                long[] previo = viaje(salida, previoS);
+                int posPrevio = 0;
+                for (long c = previoS; c != 0; c &= c - 1, posPrevio++) {
+                    int i = Long.numberOfTrailingZeros(c);
+                    long d = Math.min(previo[posPrevio] + distancias[cliente[i] * k + cliente[j]], Lector.INFINITO_CENTESIMOS);
+                    if (d < costoHasta[pos]) costoHasta[pos] = d;
+                }
+            }
+        }
+        indiceViaje.put(clave, costosViaje.size());
+        costosViaje.add(costoHasta);
+        return costoHasta;
+    }
+
+    // Posición del bit 'bit' entre los encendidos de 's'
+    private static int posicion(long s, int bit) {
+        return Long.bitCount(s & ((1L << bit) - 1));
+    }
+
+    // Orden de los clientes de 's' en el viaje óptimo desde 'salida' que termina en 'ultimo'
+    private int[] ordenViaje(int salida, long s, int ultimo) {
+        int[] orden = new int[Long.bitCount(s)];
+        for (int pos = orden.length - 1; pos >= 0; pos--) {
+            orden[pos] = ultimo;
+            if (pos == 0) break;
+            long costo = viaje(salida, s)[posicion(s, ultimo)];
+            long previoS = s & ~(1L << ultimo);
+            long[] previo = viaje(salida, previoS);
+            for (long c = previoS; c != 0; c &= c - 1) {
+                int i = Long.numberOfTrailingZeros(c);
+                if (Math.min(previo[posicion(previoS, i)] + distancias[cliente[i] * k + cliente[ultimo]], Lector.INFINITO_CENTESIMOS) == costo) {
+                    ultimo = i;
+                    break;
+                }
+            }
+            s = previoS;
+        }
+        return orden;
+    }
+
+
+    // --- Reconstrucción en el formato de camino del Solver ---
+
+    private void reconstruirCamino() {
+        // Estados desde el inicial hasta el padre del último viaje
+        List<Integer> estados = new ArrayList<>();
+        for (int id = padreFinal; id >= 0; id = padreEstado[id]) estados.add(0, id);
+
+        List<Integer> pasos = new ArrayList<>();
+        List<Boolean> recargaEnPaso = new ArrayList<>();
+        pasos.add(deposito);
+        recargaEnPaso.add(false);
+
+        for (int e = 0; e < estados.size(); e++) {
+            int id = estados.get(e);
+            boolean esUltimo = (e == estados.size() - 1);
+            long antes = mascaraEstado[id];
+            long despues = esUltimo ? todosLosPaquetes : mascaraEstado[estados.get(e + 1)];
+            int llegada = esUltimo ? -1 : recargaEstado[estados.get(e + 1)];
+            int salida = recargaEstado[id];
+
+            long s = 0;
+            for (int i = 0; i < m; i++) {
+                if (((despues & ~antes) & mascaraPaquetes[i]) != 0) s |= 1L << i;
+            }
+            long[] costoHasta = viaje(salida, s);
+            long cierre = cierreMinimo(s, costoHasta, llegada);
+
+            int ultimo = -1;
+            for (long b = s; b != 0 && ultimo < 0; b &= b - 1) {
+                int i = Long.numberOfTrailingZeros(b);
+                if (cliente[i] == llegada) continue;
+                long tramo = (llegada < 0) ? distCercana[cliente[i]] : distancias[cliente[i] * k + llegada];
+                if (Math.min(costoHasta[posicion(s, i)] + tramo, Lector.INFINITO_CENTESIMOS) == cierre) ultimo = i;
+            }
+
+            for (int i : ordenViaje(salida, s, ultimo)) {
+                int paquetes = Long.bitCount((despues & ~antes) & mascaraPaquetes[i]);
+                for (int p = 0; p < paquetes; p++) {
+                    pasos.add(cliente[i]);
+                    recargaEnPaso.add(false);
+                }
+            }
+            pasos.add(esUltimo ? recargaCercana[cliente[ultimo]] : llegada);
+            recargaEnPaso.add(!esUltimo);
+        }
+
+        this.mejorCamino = pasos.stream().mapToInt(Integer::intValue).toArray();
+        this.mejorCaminoRecarga = new boolean[pasos.size()];
+        for (int i = 0; i < pasos.size(); i++) this.mejorCaminoRecarga[i] = recargaEnPaso.get(i);
+    }
+}
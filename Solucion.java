@@ -6,7 +6,7 @@ public class Solucion {
 
     public static class Ruta {
         public List<Integer> nodosVisitados = new ArrayList<>();
-        public double costoDistanciaRuta = 0.0;
+        public long costoCentesimos = 0; // Distancia de la ruta en centésimos (exacta)
         public int paquetesEntregados = 0;
 
         // --- CONSTRUCTOR VACÍO (YA LO TIENES) ---
@@ -17,15 +17,19 @@ public class Solucion {
         public Ruta(Ruta otra) {
             // Creamos nuevas listas, pero copiamos el contenido
             this.nodosVisitados = new ArrayList<>(otra.nodosVisitados);
-            this.costoDistanciaRuta = otra.costoDistanciaRuta;
+            this.costoCentesimos = otra.costoCentesimos;
             this.paquetesEntregados = otra.paquetesEntregados;
         }
         // --- FIN DE LA ADICIÓN ---
 
+        public double getCostoDistancia() {
+            return aDecimal(costoCentesimos);
+        }
+
         @Override
         public String toString() {
             String formato = "  Ruta (Paquetes: %d, Dist: %.2f): %s";
-            return String.format(formato, paquetesEntregados, costoDistanciaRuta, nodosVisitados);
+            return String.format(formato, paquetesEntregados, getCostoDistancia(), nodosVisitados);
         }
     }
 
@@ -33,12 +37,30 @@ public class Solucion {
     public List<Ruta> rutas = new ArrayList<>();
     public List<Lector.Hub> hubsActivados = new ArrayList<>();
     
-    public double costoTotalDistancia = 0.0;
-    public double costoTotalActivacion = 0.0;
+    // Los costos se guardan en centésimos (como los calcula el Solver) y
+    // solo se pasan a decimales para mostrarlos o escribirlos.
+    public long costoDistanciaCentesimos = 0;
+    public long costoActivacionCentesimos = 0;
+
+    public static double aDecimal(long centesimos) {
+        return centesimos / (double) Lector.ESCALA_CENTESIMOS;
+    }
+
+    public double getCostoTotalDistancia() {
+        return aDecimal(costoDistanciaCentesimos);
+    }
+
+    public double getCostoTotalActivacion() {
+        return aDecimal(costoActivacionCentesimos);
+    }
+
+    public long getCostoTotalCentesimos() {
+        return costoDistanciaCentesimos + costoActivacionCentesimos;
+    }
     
     //Calcula el costo total combinado de la solución.
     public double getCostoTotal() {
-        return costoTotalDistancia + costoTotalActivacion;
+        return aDecimal(getCostoTotalCentesimos());
     }
 
     //Imprime la solución de forma legible.
@@ -46,7 +68,7 @@ public class Solucion {
         System.out.println("\n========================= SOLUCIÓN ÓPTIMA ==========================");
         System.out.printf("COSTO TOTAL: %.2f\n", getCostoTotal());
         System.out.printf(" (Distancia: %.2f + Activación Hubs: %.2f)\n",
-                costoTotalDistancia, costoTotalActivacion);
+                getCostoTotalDistancia(), getCostoTotalActivacion());
         
         System.out.printf("\nHubs Activados (%d):\n", hubsActivados.size());
         if (hubsActivados.isEmpty()) {
@@ -58,7 +80,7 @@ public class Solucion {
         }
 
         System.out.printf("\nRutas de Camiones (%d):\n", rutas.size());
-        if (rutas.isEmpty() && costoTotalDistancia > 0) {
+        if (rutas.isEmpty() && costoDistanciaCentesimos > 0) {
              System.out.println("  (Solución de backtracking aún no implementada, solo se muestra costo de hubs)");
         } else {
             for (Ruta r : rutas) {
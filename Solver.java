@@ -1,163 +1,457 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class Solver {
 
+    /**
+     * Cómo se rutea cada combinación de hubs. EXACTO es el backtracking completo y POOL
+     * la partición exacta en viajes precalculados (ver PoolViajes); HAZ y DISCREPANCIA son
+     * búsquedas acotadas (ver BusquedaHaz) que no garantizan el óptimo.
+     */
+    public enum Modo { EXACTO, POOL, HAZ, DISCREPANCIA }
+
     private Lector.Problema problema;
-    private double[][] distancias;
-    private Map<Integer, Integer> demandasPorNodo;
+    // Toda la búsqueda trabaja en centésimos enteros: sumar y restar longs no acumula error.
+    // Los nodos se manejan con los índices densos de Terminales (0..k-1), no con ids originales.
+    private Terminales terminales;
+    private long[] distancias; // Bloque k×k de Terminales, plano
+    private int k;
+    private long[] costosHub;
     private int capacidadCamion;
-    private int depositoId;
+    private int deposito;
+    private PrintStream salida = System.out; // Progreso en la terminal
 
     // --- Solución Global ---
     private Solucion mejorSolucionGlobal;
-    private double costoMinimoGlobal = Double.POSITIVE_INFINITY;
+    private long costoMinimoGlobal = Lector.INFINITO_CENTESIMOS;
+
+    // --- Búsqueda repartida entre procesos (ver Coordinador) ---
+    private volatile long cotaExterna = Lector.INFINITO_CENTESIMOS; // Mejor costo conocido en otro proceso
+    private Consumer<Solucion> oyenteMejora;
 
     // --- Estado para UNA combinación de Hubs ---
     // Guardamos el mejor VRP encontrado para la combinación de hubs actual
-    private double mejorCostoDistanciaVRP;
-    private List<Solucion.Ruta> mejorRutaVRP;
+    private long mejorCostoDistanciaVRP;
+    private int[] mejorCamino;
+    private boolean[] mejorCaminoRecarga;
     
     // --- Estado Global para el Backtracking (Modificado y Restaurado) ---
     // Esto evita el OutOfMemoryError
-    private Map<Integer, Integer> paquetesPendientesEstado;
+    private int[] paquetesPendientesEstado; // Por índice denso
     private int numTotalPaquetesPendientesEstado;
     
-    // Para construir la ruta sobre la marcha
-    private List<Solucion.Ruta> rutasActuales;
-    private Solucion.Ruta rutaParcialActual;
+    // Camino actual: un paso por entrega o recarga. Las rutas se arman recién al guardar.
+    private int[] camino;
+    private boolean[] pasoEsRecarga;
+    private int largoCamino;
+
+    // --- Puntos de recarga de la combinación actual (se actualizan de a un hub) ---
+    private long mascaraActual;            // Bit j encendido = hub j activado
+    private long costoHubsActual;
+    private int[] recargas;                // Índices densos activos: depósito + hubs
+    private int numRecargas;
+    private int[] usosRecarga;             // Por terminal: cuántos hubs/depósito la activan
+    private int[] recargaCercana;          // Por terminal: punto de recarga más cercano
+    private long[] distCercana;
+    private int[] recargaSegunda;          // Por terminal: el segundo más cercano (respaldo)
+    private long[] distSegunda;
+
+    // --- Modo de búsqueda ---
+    private Modo modo = Modo.EXACTO;
+    private MotorRuteo motor;              // null en EXACTO; el pool se comparte entre combinaciones
+
+    // --- Caché de ruteos exactos, por conjunto de hubs realmente usados ---
+    private Map<Long, EntradaCache> cacheRuteos = new HashMap<>();
+
+    private static class EntradaCache {
+        long distancia;
+        int[] camino;
+        boolean[] caminoRecarga;
+        List<Long> combinacionesEvaluadas = new ArrayList<>(); // Superconjuntos donde este ruteo es óptimo
+    }
+
+    // --- Estadísticas de poda ---
+    private long combinacionesPodadas = 0;
+    private long combinacionesReutilizadas = 0;
+    private long podasGlobales = 0;
+    private long podasLocales = 0;
+    private long nodosExplorados = 0;
+
+    // --- Checkpoint (desactivado si archivoCheckpoint es null) ---
+    private String archivoCheckpoint;
+    private long intervaloCheckpointNanos;
+    private boolean reanudarDesdeCheckpoint;
+    private BitSet combinacionesCompletadas = new BitSet();
 
 
     public Solver(Lector.Problema problema) {
         this.problema = problema;
-        this.distancias = problema.grafoDistancias;
         this.capacidadCamion = problema.capacidadCamion;
-        this.depositoId = problema.depositoId;
-        
-        this.demandasPorNodo = new HashMap<>();
-        for (Lector.Paquete p : problema.paquetes) {
-            int idDestino = p.idNodoDestino();
-            this.demandasPorNodo.put(idDestino, this.demandasPorNodo.getOrDefault(idDestino, 0) + 1);
+
+        this.terminales = new Terminales(problema);
+        this.distancias = terminales.distancias;
+        this.k = terminales.k;
+        this.deposito = terminales.indiceDeposito;
+
+        this.costosHub = new long[problema.hubs.size()];
+        for (int j = 0; j < costosHub.length; j++) {
+            this.costosHub[j] = Lector.costoHubCentesimos(problema, j);
         }
+
+        // Sin recargas seguidas, un camino tiene a lo sumo 2 pasos por paquete (+ salida y retorno)
+        int maxPasos = 2 * problema.paquetes.size() + 2;
+        this.camino = new int[maxPasos];
+        this.pasoEsRecarga = new boolean[maxPasos];
+
+        this.recargas = new int[k];
+        this.usosRecarga = new int[k];
+        this.recargaCercana = new int[k];
+        this.distCercana = new long[k];
+        this.recargaSegunda = new int[k];
+        this.distSegunda = new long[k];
+    }
+
+    /**
+     * Activa el guardado periódico del progreso.
+     * @param archivo Ruta del archivo de checkpoint.
+     * @param intervaloSegundos Tiempo mínimo entre dos escrituras.
+     * @param reanudar Si es true, se retoma la búsqueda desde el checkpoint existente (si lo hay).
+     */
+    public void configurarCheckpoint(String archivo, double intervaloSegundos, boolean reanudar) {
+        this.archivoCheckpoint = archivo;
+        this.intervaloCheckpointNanos = (long) (intervaloSegundos * 1_000_000_000L);
+        this.reanudarDesdeCheckpoint = reanudar;
+    }
+
+    //Sin mensajes de progreso (para sub-problemas que se resuelven en paralelo).
+    public void setSilencioso(boolean silencioso) {
+        this.salida = silencioso ? new PrintStream(OutputStream.nullOutputStream()) : System.out;
+    }
+
+    /**
+     * Cambia cómo se rutea cada combinación de hubs.
+     * @param modo EXACTO (por defecto), POOL, HAZ o DISCREPANCIA.
+     * @param parametro Ancho del haz (HAZ) o máximo de discrepancias por camino (DISCREPANCIA).
+     */
+    public void setModo(Modo modo, int parametro) {
+        this.modo = modo;
+        switch (modo) {
+            case POOL:
+                this.motor = new PoolViajes(this.terminales, this.capacidadCamion);
+                break;
+            case HAZ:
+                this.motor = BusquedaHaz.haz(this.terminales, this.capacidadCamion, parametro);
+                break;
+            case DISCREPANCIA:
+                this.motor = BusquedaHaz.discrepancia(this.terminales, this.capacidadCamion, parametro);
+                break;
+            default:
+                this.motor = null;
+        }
+    }
+
+    /**
+     * Resuelve el VRP para una única combinación de hubs, sin recorrer las demás.
+     * @param mascara Bit j encendido = hub j activado.
+     * @return La solución, o null si no hay ruteo posible.
+     */
+    public Solucion resolverCombinacion(long mascara) {
+        inicializarRecargas(mascara);
+        evaluarCombinacion();
+        return this.mejorSolucionGlobal;
+    }
+
+    /**
+     * Informa el mejor costo encontrado fuera de este Solver. Puede llamarse desde otro hilo;
+     * la poda la lee en cada nodo, incluso a mitad de una combinación.
+     */
+    public void actualizarCotaExterna(long costoCentesimos) {
+        if (costoCentesimos < this.cotaExterna) this.cotaExterna = costoCentesimos;
+    }
+
+    // La poda usa la mejor de las dos cotas: la propia y la que llegó de afuera (ver actualizarCotaExterna)
+    private long cotaGlobal() {
+        return Math.min(this.costoMinimoGlobal, this.cotaExterna);
+    }
+
+    // Lo que puede costar como máximo la distancia de la combinación actual para mejorar
+    private long cotaDistanciaActual() {
+        return cotaGlobal() - this.costoHubsActual;
+    }
+
+    // La cota externa pasa a ser la global (sin solución propia: la tiene otro proceso)
+    private void aplicarCotaExterna() {
+        this.costoMinimoGlobal = cotaGlobal();
+    }
+
+    //Se llama con cada nueva mejor solución global que encuentra este Solver.
+    public void setOyenteMejora(Consumer<Solucion> oyente) {
+        this.oyenteMejora = oyente;
+    }
+
+    /**
+     * Explora solo las posiciones [desde, hasta) del orden Gray de combinaciones de hubs.
+     * Las mejoras se informan por el oyente; la caché de ruteos se conserva entre rangos.
+     */
+    public void resolverRango(int desde, int hasta) {
+        recorrerCombinaciones(desde, hasta);
     }
 
     public Solucion encontrarMejorSolucion() {
-        System.out.println("\nIniciando búsqueda de la mejor combinación de Hubs...");
+        this.salida.println("\nIniciando búsqueda de la mejor combinación de Hubs...");
         List<Lector.Hub> hubs = problema.hubs;
+
+        if (this.archivoCheckpoint != null && this.reanudarDesdeCheckpoint) {
+            restaurarCheckpoint();
+        }
         
         // --- Branch and Bound
-        System.out.println("Calculando una primera solución 'base' (sin hubs)...");
-        Set<Integer> soloDeposito = new HashSet<>();
-        soloDeposito.add(this.depositoId);
-        evaluarCombinacion(0.0, soloDeposito, new ArrayList<>());
+        if (this.mejorSolucionGlobal == null) {
+            this.salida.println("Calculando una primera solución 'base' (sin hubs)...");
+            inicializarRecargas(0);
+            evaluarCombinacion();
+        }
         
         if (this.mejorSolucionGlobal != null) {
-            System.out.printf("Solución base encontrada. Costo: %.2f. Usando para poda.\n", this.costoMinimoGlobal);
+            this.salida.printf("Solución base encontrada. Costo: %.2f. Usando para poda.\n", Solucion.aDecimal(this.costoMinimoGlobal));
         } else {
-            System.out.println("No se encontró solución base (raro), continuando...");
+            this.salida.println("No se encontró solución base (raro), continuando...");
         }
     // --- Fin
 
         // Iteramos 2^N_HUBS. Para 15 hubs (caso grande) son ~32k, es muy rápido.
         int numCombinaciones = 1 << hubs.size();
         //Para debug en la terminal
-        System.out.printf("Total de combinaciones de Hubs a probar: %d\n", numCombinaciones); 
+        this.salida.printf("Total de combinaciones de Hubs a probar: %d\n", numCombinaciones); 
 
-        for (int i = 0; i < numCombinaciones; i++) {
-            //Para debug en la terminal
-            System.out.printf("\n--- Probando Combinación %d / %d ---\n", (i + 1), numCombinaciones);
-            Solucion solucionParcial = new Solucion();
-            Set<Integer> puntosDeRecarga = new HashSet<>();
-            puntosDeRecarga.add(this.depositoId);
-            double costoHubsActual = 0.0;
-
-            // Construir el subconjunto de hubs para esta iteración
-            for (int j = 0; j < hubs.size(); j++) {
-                // Chequeamos si el j-ésimo bit está encendido
-                if ((i & (1 << j)) > 0) {
-                    Lector.Hub hub = hubs.get(j);
-                    costoHubsActual += hub.costoActivacion();
-                    solucionParcial.hubsActivados.add(hub);
-                    puntosDeRecarga.add(hub.idNodo());
-                }
+        recorrerCombinaciones(0, numCombinaciones);
+
+        if (this.archivoCheckpoint != null) {
+            guardarCheckpoint();
+        }
+        this.salida.printf("\nPodas -> Combinaciones: %d, Globales: %d, Locales: %d (Nodos explorados: %d, Reutilizadas: %d)\n",
+                this.combinacionesPodadas, this.podasGlobales, this.podasLocales, this.nodosExplorados,
+                this.combinacionesReutilizadas);
+        if (this.motor instanceof PoolViajes pool) {
+            this.salida.printf("Pool de viajes: %d viajes calculados, %d estados dominados\n",
+                    pool.tamanioPool(), pool.estadosDominados);
+        }
+
+        return this.mejorSolucionGlobal;
+    }
+
+    /**
+     * Recorre las posiciones [desde, hasta) del código Gray de las combinaciones de hubs.
+     * Entre dos posiciones consecutivas cambia exactamente un hub, así que el costo de
+     * activación y los puntos de recarga se actualizan en O(k) en vez de reconstruirse.
+     */
+    private void recorrerCombinaciones(int desde, int hasta) {
+        int numCombinaciones = 1 << problema.hubs.size();
+        long ultimoCheckpoint = System.nanoTime();
+        inicializarRecargas(codigoGray(desde));
+
+        // Cota inferior de la distancia VRP de la combinación anterior (0 = sin información)
+        long cotaAnterior = 0;
+
+        for (int i = desde; i < hasta; i++) {
+            boolean seQuitoUnHub = false;
+            if (i > desde) {
+                int hub = Integer.numberOfTrailingZeros(i); // El bit que cambia entre gray(i-1) y gray(i)
+                seQuitoUnHub = (this.mascaraActual & (1L << hub)) != 0;
+                alternarHub(hub);
             }
+            // Quitar hubs nunca acorta el ruteo: la cota de la combinación anterior sigue valiendo
+            long cotaDistancia = seQuitoUnHub ? cotaAnterior : 0;
+
+            aplicarCotaExterna();
+
+            int mascara = (int) this.mascaraActual;
+            if (this.combinacionesCompletadas.get(mascara)) {
+                cotaAnterior = 0;
+                continue; // Ya explorada antes del último checkpoint
+            }
+            //Para debug en la terminal
+            this.salida.printf("\n--- Probando Combinación %d / %d ---\n", (i + 1), numCombinaciones);
             
             // --- PODA Nivel 1 (Branch & Bound Global) ---
-            // Si activar estos hubs ya cuesta más que la mejor solución encontrada,
-            // ni siquiera intentamos calcular la ruta VRP.
-            if (costoHubsActual >= this.costoMinimoGlobal) {
-                continue; // Podamos esta combinación de hubs
+            // Si activar estos hubs (más lo mínimo que sabemos que hay que recorrer) ya cuesta
+            // más que la mejor solución encontrada, ni siquiera intentamos calcular la ruta VRP.
+            if (this.costoHubsActual + cotaDistancia >= this.costoMinimoGlobal) {
+                this.combinacionesPodadas++;
+            } else {
+                long distanciaCache = reutilizarRuteo();
+                // --- Resolver el VRP para esta combinación de hubs ---
+                cotaDistancia = (distanciaCache >= 0) ? distanciaCache : evaluarCombinacion();
             }
+            cotaAnterior = cotaDistancia;
+            this.combinacionesCompletadas.set(mascara);
 
-            // --- Resolver el VRP para esta combinación de hubs ---
-            evaluarCombinacion(costoHubsActual, puntosDeRecarga, solucionParcial.hubsActivados);
+            if (this.archivoCheckpoint != null && System.nanoTime() - ultimoCheckpoint >= this.intervaloCheckpointNanos) {
+                guardarCheckpoint();
+                ultimoCheckpoint = System.nanoTime();
+            }
         }
+    }
 
-        return this.mejorSolucionGlobal;
+    private static int codigoGray(int i) {
+        return i ^ (i >>> 1);
+    }
+
+    private void guardarCheckpoint() {
+        Checkpoint c = new Checkpoint();
+        c.combinacionesCompletadas = this.combinacionesCompletadas;
+        c.mejorSolucion = this.mejorSolucionGlobal;
+        c.costoMejorSolucion = this.costoMinimoGlobal;
+        c.combinacionesPodadas = this.combinacionesPodadas;
+        c.podasGlobales = this.podasGlobales;
+        c.podasLocales = this.podasLocales;
+        c.nodosExplorados = this.nodosExplorados;
+        Checkpoint.guardar(this.archivoCheckpoint, this.problema, c);
+    }
+
+    private void restaurarCheckpoint() {
+        Checkpoint c = Checkpoint.cargar(this.archivoCheckpoint, this.problema);
+        if (c == null) {
+            this.salida.println("No hay checkpoint válido, se empieza desde cero.");
+            return;
+        }
+        this.combinacionesCompletadas = c.combinacionesCompletadas;
+        this.mejorSolucionGlobal = c.mejorSolucion;
+        this.costoMinimoGlobal = c.costoMejorSolucion;
+        this.combinacionesPodadas = c.combinacionesPodadas;
+        this.podasGlobales = c.podasGlobales;
+        this.podasLocales = c.podasLocales;
+        this.nodosExplorados = c.nodosExplorados;
+        this.salida.printf("Reanudando desde checkpoint: %d combinaciones ya exploradas.\n",
+                this.combinacionesCompletadas.cardinality());
     }
 
 
-    private void evaluarCombinacion(double costoHubs, Set<Integer> puntosDeRecarga, List<Lector.Hub> hubsActivos) {
+    /**
+     * Resuelve el VRP para la combinación de hubs actual.
+     * @return Una cota inferior de la distancia VRP de esta combinación (exacta si mejoró la global).
+     */
+    private long evaluarCombinacion() {
+        if (this.motor != null && !this.motor.esExacto()) return evaluarCombinacionHeuristica();
+        long costoHubs = this.costoHubsActual;
         
         // 1. Inicializar el estado para el backtracking
-        this.paquetesPendientesEstado = new HashMap<>(this.demandasPorNodo);
+        this.paquetesPendientesEstado = Arrays.copyOf(terminales.demanda, k);
         this.numTotalPaquetesPendientesEstado = this.problema.numPaquetes;
-        this.mejorCostoDistanciaVRP = Double.POSITIVE_INFINITY;
-        this.mejorRutaVRP = null; // Aún no encontramos ruta para esta comb.
+        this.mejorCostoDistanciaVRP = Lector.INFINITO_CENTESIMOS;
+        this.mejorCamino = null; // Aún no encontramos ruta para esta comb.
         
-        this.rutasActuales = new ArrayList<>();
-        this.rutaParcialActual = new Solucion.Ruta();
-        this.rutaParcialActual.nodosVisitados.add(this.depositoId);
-
-        // 2. Iniciar la recursión
-        backtrackRecursivo(
-            this.depositoId,
-            this.capacidadCamion,
-            0.0, // costoDistanciaAcumulado
-            costoHubs,
-            puntosDeRecarga
-        );
-
-        // 3. Evaluar el resultado de esta combinación
-        double costoTotalCombinacion = this.mejorCostoDistanciaVRP + costoHubs;
+        this.camino[0] = this.deposito;
+        this.pasoEsRecarga[0] = false;
+        this.largoCamino = 1;
+
+        // 2. Iniciar la recursión (o la partición en viajes, que da el mismo óptimo)
+        if (this.motor != null) {
+            resolverConMotor();
+        } else {
+            backtrackRecursivo(
+                this.deposito,
+                this.capacidadCamion,
+                0, // costoDistanciaAcumulado
+                costoHubs
+            );
+        }
+
+        // 3. Evaluar el resultado de esta combinación (contra la cota con la que terminó la poda)
+        aplicarCotaExterna();
+        long costoTotalCombinacion = this.mejorCostoDistanciaVRP + costoHubs;
 
         if (costoTotalCombinacion < this.costoMinimoGlobal) {
-            this.costoMinimoGlobal = costoTotalCombinacion;
+            // La poda global no pudo descartar nada mejor que esto: el ruteo es óptimo
+            // para esta combinación y también para cualquier subconjunto que contenga
+            // los hubs que de verdad usa.
+            guardarEnCache(this.mejorCostoDistanciaVRP, this.mejorCamino, this.mejorCaminoRecarga);
+            aceptarSolucion(this.mejorCostoDistanciaVRP, this.mejorCamino, this.mejorCaminoRecarga);
+            return this.mejorCostoDistanciaVRP;
+        }
+        // Todo ruteo más corto que (global - hubs) habría sobrevivido a la poda
+        return Math.min(this.mejorCostoDistanciaVRP, this.costoMinimoGlobal - costoHubs);
+    }
+
+    // Rutea la combinación actual con el motor y deja el resultado donde lo deja el backtracking
+    private void resolverConMotor() {
+        long expandidosAntes = this.motor.estadosExpandidos;
+        this.motor.prepararCombinacion(this.recargas, this.numRecargas, this.recargaCercana,
+                this.distCercana, this::cotaDistanciaActual);
+        this.motor.resolver();
+        this.nodosExplorados += this.motor.estadosExpandidos - expandidosAntes;
+        if (this.motor.mejorCamino != null) {
+            this.mejorCostoDistanciaVRP = this.motor.mejorDistancia;
+            this.mejorCamino = this.motor.mejorCamino;
+            this.mejorCaminoRecarga = this.motor.mejorCaminoRecarga;
+        }
+    }
+
+    /**
+     * Rutea la combinación actual con un motor no exacto (BusquedaHaz). El resultado no es
+     * necesariamente óptimo: no se guarda en la caché ni sirve como cota inferior para las
+     * combinaciones siguientes.
+     * @return 0 (sin información de cota).
+     */
+    private long evaluarCombinacionHeuristica() {
+        long costoHubs = this.costoHubsActual;
+        this.mejorCostoDistanciaVRP = Lector.INFINITO_CENTESIMOS;
+        this.mejorCamino = null;
+        resolverConMotor();
+
+        aplicarCotaExterna();
+        if (this.mejorCamino != null && this.mejorCostoDistanciaVRP + costoHubs < this.costoMinimoGlobal) {
+            aceptarSolucion(this.mejorCostoDistanciaVRP, this.mejorCamino, this.mejorCaminoRecarga);
+        }
+        return 0;
+    }
+
+    private void aceptarSolucion(long distancia, int[] caminoDenso, boolean[] esRecarga) {
+        long costoHubs = this.costoHubsActual;
+        List<Lector.Hub> hubsActivos = hubsDeMascara(this.mascaraActual);
+        this.costoMinimoGlobal = distancia + costoHubs;
             
-            // Construimos el objeto Solucion final
-            this.mejorSolucionGlobal = new Solucion();
-            this.mejorSolucionGlobal.costoTotalActivacion = costoHubs;
-            this.mejorSolucionGlobal.costoTotalDistancia = this.mejorCostoDistanciaVRP;
-            this.mejorSolucionGlobal.hubsActivados = hubsActivos;
-            this.mejorSolucionGlobal.rutas = this.mejorRutaVRP; // Guardamos la mejor ruta VRP encontrada
-
-            System.out.printf("  -> NUEVA MEJOR SOLUCIÓN GLOBAL! Costo: %.2f (Dist: %.2f + Hubs: %.2f) [Hubs: %s]\n",
-                 this.costoMinimoGlobal,
-                 this.mejorCostoDistanciaVRP,
-                 costoHubs,
-                 hubsActivos.stream().map(Lector.Hub::idNodo).collect(Collectors.toList()));
+        // Construimos el objeto Solucion final
+        this.mejorSolucionGlobal = new Solucion();
+        this.mejorSolucionGlobal.costoActivacionCentesimos = costoHubs;
+        this.mejorSolucionGlobal.costoDistanciaCentesimos = distancia;
+        this.mejorSolucionGlobal.hubsActivados = hubsActivos;
+        this.mejorSolucionGlobal.rutas = construirRutas(caminoDenso, esRecarga);
+
+        this.salida.printf("  -> NUEVA MEJOR SOLUCIÓN GLOBAL! Costo: %.2f (Dist: %.2f + Hubs: %.2f) [Hubs: %s]\n",
+             Solucion.aDecimal(this.costoMinimoGlobal),
+             Solucion.aDecimal(distancia),
+             Solucion.aDecimal(costoHubs),
+             hubsActivos.stream().map(Lector.Hub::idNodo).collect(Collectors.toList()));
+
+        if (this.oyenteMejora != null) {
+            this.oyenteMejora.accept(this.mejorSolucionGlobal);
         }
     }
 
     /**
      * Función de backtracking principal. No retorna nada (void), sino que
-     * modifica el estado global 'mejorCostoDistanciaVRP' y 'mejorRutaVRP'
+     * modifica el estado global 'mejorCostoDistanciaVRP' y 'mejorCamino'
      * si encuentra una solución VRP completa y mejor.
      */
     private void backtrackRecursivo(int nodoActual, int capacidadRestante,
-                                    double costoDistanciaAcumulado,
-                                    double costoHubs,
-                                    Set<Integer> puntosDeRecarga) {
+                                    long costoDistanciaAcumulado,
+                                    long costoHubs) {
+        this.nodosExplorados++;
         
         // --- PODA Nivel 2 (Branch & Bound Global) ---
         // Si la distancia que ya recorrimos + hubs es peor que la mejor
         // SOLUCIÓN TOTAL, esta rama es inútil.
-        if (costoDistanciaAcumulado + costoHubs >= this.costoMinimoGlobal) {
+        if (costoDistanciaAcumulado + costoHubs >= cotaGlobal()) {
+            this.podasGlobales++;
             return; // PODADO (Global)
         }
 
@@ -165,30 +459,30 @@ public class Solver {
         // Si la distancia que ya recorrimos es peor que la mejor
         // RUTA VRP (para esta comb. de hubs), esta rama es inútil.
         if (costoDistanciaAcumulado >= this.mejorCostoDistanciaVRP) {
+            this.podasLocales++;
             return; // PODADO (Local)
         }
 
+        int fila = nodoActual * k;
+
         // --- CASO BASE (ÉXITO) ---
         // No quedan paquetes por entregar
         if (this.numTotalPaquetesPendientesEstado == 0) {
             // Encontramos una solución VRP completa.
             // Calculamos el costo de volver al punto de recarga más cercano.
-            int nodoRetorno = encontrarRecargaMasCercana(nodoActual, puntosDeRecarga);
-            double costoRetorno = (nodoRetorno != -1) ? distancias[nodoActual][nodoRetorno] : 0.0;
-            double costoVRPFinal = costoDistanciaAcumulado + costoRetorno;
+            int nodoRetorno = this.recargaCercana[nodoActual];
+            long costoRetorno = this.distCercana[nodoActual];
+            long costoVRPFinal = costoDistanciaAcumulado + costoRetorno;
 
             // ¿Es la mejor solución VRP *para esta combinación de hubs*?
             if (costoVRPFinal < this.mejorCostoDistanciaVRP) {
                 this.mejorCostoDistanciaVRP = costoVRPFinal;
                 
-                // Guardamos la ruta completa
-                // (Necesitamos un constructor de copia en Solucion.Ruta)
-                Solucion.Ruta rutaFinal = new Solucion.Ruta(this.rutaParcialActual);
-                rutaFinal.nodosVisitados.add(nodoRetorno);
-                rutaFinal.costoDistanciaRuta += costoRetorno;
-                
-                this.mejorRutaVRP = new ArrayList<>(this.rutasActuales);
-                this.mejorRutaVRP.add(rutaFinal);
+                // Guardamos el camino completo (con el retorno como último paso)
+                this.mejorCamino = Arrays.copyOf(this.camino, this.largoCamino + 1);
+                this.mejorCamino[this.largoCamino] = nodoRetorno;
+                this.mejorCaminoRecarga = Arrays.copyOf(this.pasoEsRecarga, this.largoCamino + 1);
+                this.mejorCaminoRecarga[this.largoCamino] = false; // El retorno final no es recarga (la celda puede traer basura de otra rama)
             }
             return; // Fin de esta rama recursiva
         }
@@ -198,22 +492,15 @@ public class Solver {
 
         // Opción 1: Entregar un paquete (si tenemos capacidad)
         if (capacidadRestante > 0) {
-            // Usamos una copia de las keys para evitar ConcurrentModificationException
-            // al modificar el map 'paquetesPendientesEstado'
-            Set<Integer> clientesPendientes = new HashSet<>(this.paquetesPendientesEstado.keySet());
-
-            for (int idCliente : clientesPendientes) {
-                double costoViaje = distancias[nodoActual][idCliente];
+            for (int idCliente : terminales.clientes) {
+                if (this.paquetesPendientesEstado[idCliente] == 0) continue;
+                long costoViaje = distancias[fila + idCliente];
 
                 // 1. MODIFICAR ESTADO
-                this.rutaParcialActual.nodosVisitados.add(idCliente);
-                this.rutaParcialActual.costoDistanciaRuta += costoViaje;
-                this.rutaParcialActual.paquetesEntregados++;
-                
-                int demandaRestante = this.paquetesPendientesEstado.get(idCliente) - 1;
-                if (demandaRestante == 0) this.paquetesPendientesEstado.remove(idCliente);
-                else this.paquetesPendientesEstado.put(idCliente, demandaRestante);
-                
+                this.camino[this.largoCamino] = idCliente;
+                this.pasoEsRecarga[this.largoCamino] = false;
+                this.largoCamino++;
+                this.paquetesPendientesEstado[idCliente]--;
                 this.numTotalPaquetesPendientesEstado--;
 
                 // 2. RECURSAR
@@ -221,17 +508,13 @@ public class Solver {
                     idCliente,
                     capacidadRestante - 1,
                     costoDistanciaAcumulado + costoViaje,
-                    costoHubs,
-                    puntosDeRecarga
+                    costoHubs
                 );
 
                 // 3. DESHACER (El Backtrack)
                 this.numTotalPaquetesPendientesEstado++;
-                this.paquetesPendientesEstado.put(idCliente, this.paquetesPendientesEstado.getOrDefault(idCliente, 0) + 1);
-                
-                this.rutaParcialActual.paquetesEntregados--;
-                this.rutaParcialActual.costoDistanciaRuta -= costoViaje;
-                this.rutaParcialActual.nodosVisitados.remove(this.rutaParcialActual.nodosVisitados.size() - 1);
+                this.paquetesPendientesEstado[idCliente]++;
+                this.largoCamino--;
             }
         }
 
@@ -240,31 +523,27 @@ public class Solver {
         // ya esté en un punto de recarga con el tanque lleno.
         boolean puedeRecargar = (capacidadRestante < this.capacidadCamion);
         if (puedeRecargar) {
-            for (int idRecarga : puntosDeRecarga) {
+            for (int r = 0; r < this.numRecargas; r++) {
+                int idRecarga = this.recargas[r];
                 if (idRecarga == nodoActual) continue; // No recargar donde ya estamos
 
-                double costoViaje = distancias[nodoActual][idRecarga];
+                long costoViaje = distancias[fila + idRecarga];
 
-                // 1. MODIFICAR ESTADO (Guardamos ruta parcial, empezamos una nueva)
-                Solucion.Ruta rutaAnterior = this.rutaParcialActual; // Guardamos para el backtrack
-                this.rutasActuales.add(rutaAnterior); // "Bancamos" la ruta
-                
-                this.rutaParcialActual = new Solucion.Ruta();
-                this.rutaParcialActual.nodosVisitados.add(idRecarga);
-                // (El costo de esta ruta parcial es 0 por ahora)
+                // 1. MODIFICAR ESTADO (la recarga empieza una ruta nueva)
+                this.camino[this.largoCamino] = idRecarga;
+                this.pasoEsRecarga[this.largoCamino] = true;
+                this.largoCamino++;
 
                 // 2. RECURSAR
                 backtrackRecursivo(
                     idRecarga,
                     this.capacidadCamion, // Capacidad reseteada
                     costoDistanciaAcumulado + costoViaje,
-                    costoHubs,
-                    puntosDeRecarga
+                    costoHubs
                 );
 
-                // 3. DESHACER (Restaurar estado de la ruta)
-                this.rutaParcialActual = rutaAnterior;
-                this.rutasActuales.remove(this.rutasActuales.size() - 1);
+                // 3. DESHACER
+                this.largoCamino--;
             }
         }
     }
@@ -272,16 +551,176 @@ public class Solver {
 
     // --- Funciones Helper ---
 
-    private int encontrarRecargaMasCercana(int nodoActual, Set<Integer> puntosDeRecarga) {
-        double distMinima = Double.POSITIVE_INFINITY;
-        int idRecargaMasCercana = -1;
-        for (int idRecarga : puntosDeRecarga) {
-            double dist = distancias[nodoActual][idRecarga];
-            if (dist < distMinima) {
-                distMinima = dist;
-                idRecargaMasCercana = idRecarga;
+    // --- Puntos de recarga incrementales ---
+
+    // Deja activos exactamente los hubs de 'mascara' y recalcula las tablas de recarga.
+    private void inicializarRecargas(long mascara) {
+        Arrays.fill(this.usosRecarga, 0);
+        this.numRecargas = 0;
+        Arrays.fill(this.recargaCercana, -1);
+        Arrays.fill(this.distCercana, Long.MAX_VALUE);
+        Arrays.fill(this.recargaSegunda, -1);
+        Arrays.fill(this.distSegunda, Long.MAX_VALUE);
+        this.mascaraActual = 0;
+        this.costoHubsActual = 0;
+
+        activarRecarga(this.deposito);
+        for (int j = 0; j < costosHub.length; j++) {
+            if ((mascara & (1L << j)) != 0) alternarHub(j);
+        }
+    }
+
+    private void alternarHub(int j) {
+        this.mascaraActual ^= (1L << j);
+        if ((this.mascaraActual & (1L << j)) != 0) {
+            this.costoHubsActual += this.costosHub[j];
+            activarRecarga(terminales.indiceHub[j]);
+        } else {
+            this.costoHubsActual -= this.costosHub[j];
+            desactivarRecarga(terminales.indiceHub[j]);
+        }
+    }
+
+    private void activarRecarga(int r) {
+        if (++this.usosRecarga[r] > 1) return; // Ya activa (un hub puede coincidir con el depósito)
+        this.recargas[this.numRecargas++] = r;
+
+        for (int v = 0; v < k; v++) {
+            long d = distancias[v * k + r];
+            if (d < this.distCercana[v]) {
+                this.recargaSegunda[v] = this.recargaCercana[v];
+                this.distSegunda[v] = this.distCercana[v];
+                this.recargaCercana[v] = r;
+                this.distCercana[v] = d;
+            } else if (d < this.distSegunda[v]) {
+                this.recargaSegunda[v] = r;
+                this.distSegunda[v] = d;
+            }
+        }
+    }
+
+    private void desactivarRecarga(int r) {
+        if (--this.usosRecarga[r] > 0) return;
+        for (int i = 0; i < this.numRecargas; i++) {
+            if (this.recargas[i] == r) {
+                this.recargas[i] = this.recargas[--this.numRecargas];
+                break;
+            }
+        }
+
+        // Solo se tocan los terminales que tenían a 'r' como primera o segunda opción
+        for (int v = 0; v < k; v++) {
+            if (this.recargaCercana[v] == r) {
+                this.recargaCercana[v] = this.recargaSegunda[v];
+                this.distCercana[v] = this.distSegunda[v];
+                recalcularSegunda(v);
+            } else if (this.recargaSegunda[v] == r) {
+                recalcularSegunda(v);
+            }
+        }
+    }
+
+    private void recalcularSegunda(int v) {
+        this.recargaSegunda[v] = -1;
+        this.distSegunda[v] = Long.MAX_VALUE;
+        for (int i = 0; i < this.numRecargas; i++) {
+            int r = this.recargas[i];
+            if (r == this.recargaCercana[v]) continue;
+            long d = distancias[v * k + r];
+            if (d < this.distSegunda[v]) {
+                this.recargaSegunda[v] = r;
+                this.distSegunda[v] = d;
+            }
+        }
+    }
+
+    private List<Lector.Hub> hubsDeMascara(long mascara) {
+        List<Lector.Hub> hubsActivos = new ArrayList<>();
+        for (int j = 0; j < costosHub.length; j++) {
+            if ((mascara & (1L << j)) != 0) hubsActivos.add(problema.hubs.get(j));
+        }
+        return hubsActivos;
+    }
+
+
+    // --- Caché de ruteos ---
+
+    // Hubs activos cuyo nodo aparece en el camino como recarga o como retorno final
+    private long hubsUsados(int[] caminoDenso, boolean[] esRecarga) {
+        long usados = 0;
+        for (int paso = 0; paso < caminoDenso.length; paso++) {
+            if (!esRecarga[paso] && paso != caminoDenso.length - 1) continue;
+            for (int j = 0; j < costosHub.length; j++) {
+                if (terminales.indiceHub[j] == caminoDenso[paso] && (this.mascaraActual & (1L << j)) != 0) {
+                    usados |= (1L << j);
+                }
+            }
+        }
+        return usados;
+    }
+
+    private void guardarEnCache(long distancia, int[] caminoDenso, boolean[] esRecarga) {
+        long usados = hubsUsados(caminoDenso, esRecarga);
+        EntradaCache entrada = this.cacheRuteos.get(usados);
+        if (entrada == null) {
+            entrada = new EntradaCache();
+            entrada.distancia = distancia;
+            entrada.camino = caminoDenso;
+            entrada.caminoRecarga = esRecarga;
+            this.cacheRuteos.put(usados, entrada);
+        }
+        entrada.combinacionesEvaluadas.add(this.mascaraActual);
+    }
+
+    /**
+     * Si un ruteo óptimo para una combinación T solo usa hubs que también están en la
+     * combinación actual S (y S está contenida en T), ese ruteo es óptimo para S: con
+     * menos hubs no se puede recorrer menos, y el de T sigue siendo factible. Lo
+     * costeamos sin volver a buscar.
+     * @return La distancia VRP exacta tomada de la caché, o -1 si no hubo coincidencia.
+     */
+    private long reutilizarRuteo() {
+        long s = this.mascaraActual;
+        for (Map.Entry<Long, EntradaCache> e : this.cacheRuteos.entrySet()) {
+            long usados = e.getKey();
+            if ((usados & ~s) != 0) continue;
+            EntradaCache entrada = e.getValue();
+            for (long t : entrada.combinacionesEvaluadas) {
+                if ((s & ~t) != 0) continue;
+                this.combinacionesReutilizadas++;
+                if (entrada.distancia + this.costoHubsActual < this.costoMinimoGlobal) {
+                    aceptarSolucion(entrada.distancia, entrada.camino, entrada.caminoRecarga);
+                }
+                return entrada.distancia;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Arma las rutas de la Solucion a partir de un camino de índices densos.
+     * Cada recarga cierra la ruta en curso y abre una nueva que empieza en el punto
+     * de recarga; el último paso del camino es el retorno final. Acá recién se
+     * vuelve a los ids originales de los nodos.
+     */
+    private List<Solucion.Ruta> construirRutas(int[] caminoDenso, boolean[] esRecarga) {
+        List<Solucion.Ruta> rutas = new ArrayList<>();
+        Solucion.Ruta actual = new Solucion.Ruta();
+        actual.nodosVisitados.add(terminales.idOriginal[caminoDenso[0]]);
+
+        int ultimo = caminoDenso.length - 1;
+        for (int paso = 1; paso <= ultimo; paso++) {
+            int nodo = caminoDenso[paso];
+            if (esRecarga[paso]) {
+                rutas.add(actual);
+                actual = new Solucion.Ruta();
+            } else {
+                actual.costoCentesimos += terminales.distancia(caminoDenso[paso - 1], nodo);
+                if (paso < ultimo) actual.paquetesEntregados++;
             }
+            actual.nodosVisitados.add(terminales.idOriginal[nodo]);
         }
-        return idRecargaMasCercana;
+        rutas.add(actual);
+        return rutas;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Pre-procesamiento del Solver: el backtracking solo visita el depósito, los hubs y
+ * los nodos con demanda ("terminales"). Los renumeramos como índices densos 0..k-1
+ * y copiamos su bloque de distancias k×k a un arreglo plano, así el lazo caliente
+ * depende de k y no del tamaño total del grafo.
+ *
+ * Los ids originales solo vuelven a aparecer al armar la Solucion (ver idOriginal).
+ */
+public class Terminales {
+
+    public final int k;
+    public final int[] idOriginal;      // índice denso -> id de nodo
+    public final long[] distancias;     // bloque k×k en centésimos, fila por fila
+    public final int indiceDeposito;
+    public final int[] indiceHub;       // hub j (orden de Problema.hubs) -> índice denso
+    public final int[] demanda;         // paquetes con destino en cada terminal
+    public final int[] clientes;        // índices densos con demanda > 0
+
+    private final Map<Integer, Integer> indicePorId = new HashMap<>();
+
+
+    public Terminales(Lector.Problema problema) {
+        // 1. Numerar: depósito primero, luego hubs, luego destinos (sin repetir)
+        List<Integer> ids = new ArrayList<>();
+        this.indiceDeposito = registrar(problema.depositoId, ids);
+
+        this.indiceHub = new int[problema.hubs.size()];
+        for (int j = 0; j < indiceHub.length; j++) {
+            this.indiceHub[j] = registrar(problema.hubs.get(j).idNodo(), ids);
+        }
+        for (Lector.Paquete p : problema.paquetes) {
+            registrar(p.idNodoDestino(), ids);
+        }
+
+        this.k = ids.size();
+        this.idOriginal = ids.stream().mapToInt(Integer::intValue).toArray();
+
+        // 2. Demanda por terminal
+        this.demanda = new int[k];
+        for (Lector.Paquete p : problema.paquetes) {
+            this.demanda[indice(p.idNodoDestino())]++;
+        }
+        List<Integer> conDemanda = new ArrayList<>();
+        for (int t = 0; t < k; t++) {
+            if (demanda[t] > 0) conDemanda.add(t);
+        }
+        this.clientes = conDemanda.stream().mapToInt(Integer::intValue).toArray();
+
+        // 3. Copiar el bloque de distancias (exacto si el problema está en centésimos)
+        this.distancias = new long[k * k];
+        for (int a = 0; a < k; a++) {
+            for (int b = 0; b < k; b++) {
+                this.distancias[a * k + b] = Lector.distanciaCentesimos(problema, idOriginal[a], idOriginal[b]);
+            }
+        }
+    }
+
+    private int registrar(int idNodo, List<Integer> ids) {
+        Integer existente = indicePorId.get(idNodo);
+        if (existente != null) return existente;
+        indicePorId.put(idNodo, ids.size());
+        ids.add(idNodo);
+        return ids.size() - 1;
+    }
+
+    //Índice denso de un nodo, o -1 si no es terminal.
+    public int indice(int idNodo) {
+        return indicePorId.getOrDefault(idNodo, -1);
+    }
+
+    public long distancia(int a, int b) {
+        return distancias[a * k + b];
+    }
+}
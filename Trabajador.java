@@ -0,0 +1,96 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+
+/**
+ * Proceso trabajador de la búsqueda repartida (ver Coordinador). Lee el mismo archivo
+ * de problema, se conecta al coordinador y resuelve los rangos de combinaciones de hubs
+ * que le asigna, podando con la mejor cota global que le van mandando.
+ *
+ * Protocolo (una orden por línea):
+ *   Coordinador -> Trabajador:  RANGO desde hasta | COTA costo | FIN
+ *   Trabajador -> Coordinador:  MEJORA + solución (formato de Checkpoint) + FIN_SOLUCION | HECHO desde hasta
+ */
+public class Trabajador {
+
+    private static final int[] FIN = new int[0];
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Uso: java Trabajador <host> <puerto> <nombre_del_archivo.txt>");
+            System.exit(1);
+        }
+        String host = args[0];
+        int puerto = Integer.parseInt(args[1]);
+
+        Lector.Problema problema = Lector.leerArchivo(args[2], true);
+        if (problema == null) System.exit(1);
+        FloydWarshall.calcularCaminosMinimos(problema);
+
+        try (Socket socket = new Socket(host, puerto)) {
+            trabajar(socket, problema);
+        } catch (IOException e) {
+            System.err.println("Trabajador: se perdió la conexión con el coordinador: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void trabajar(Socket socket, Lector.Problema problema) throws IOException, InterruptedException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8);
+
+        Solver solver = new Solver(problema);
+        solver.setSilencioso(true);
+        // Cada mejora viaja con su solución: si el proceso muere, el coordinador ya la tiene
+        solver.setOyenteMejora(sol -> {
+            synchronized (out) {
+                out.println("MEJORA");
+                Checkpoint.escribirSolucion(out, sol);
+                out.println("FIN_SOLUCION");
+                out.flush();
+            }
+        });
+
+        // Las cotas llegan mientras el hilo principal está resolviendo: las lee otro hilo
+        BlockingQueue<int[]> rangos = new LinkedBlockingQueue<>();
+        Thread lector = new Thread(() -> {
+            try {
+                String linea;
+                while ((linea = in.readLine()) != null) {
+                    String[] partes = linea.trim().split("\\s+");
+                    if (partes[0].equals("RANGO")) {
+                        rangos.add(new int[] { Integer.parseInt(partes[1]), Integer.parseInt(partes[2]) });
+                    } else if (partes[0].equals("COTA")) {
+                        solver.actualizarCotaExterna(Long.parseLong(partes[1]));
+                    } else if (partes[0].equals("FIN")) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Trabajador: error leyendo del coordinador: " + e.getMessage());
+            }
+            rangos.add(FIN);
+        });
+        lector.setDaemon(true);
+        lector.start();
+
+        while (true) {
+            int[] rango = rangos.take();
+            if (rango == FIN) break;
+
+            solver.resolverRango(rango[0], rango[1]);
+            synchronized (out) {
+                out.println("HECHO " + rango[0] + " " + rango[1]);
+                out.flush();
+            }
+        }
+    }
+}